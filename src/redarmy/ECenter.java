@@ -265,6 +265,7 @@ public class ECenter {
     case MyLocationX:
     case MyLocationY:
     case None:
+    case Unknown:
       break;
     }
     return true;
@@ -369,6 +370,7 @@ public class ECenter {
             case Reinforce2:
             case HelloEC:
             case None:
+            case Unknown:
               break;
             }
 
@@ -57,122 +57,107 @@ public class Flag {
   }
 
   public enum Type {
-    None,
+    None(0, false, false),
     /**
      * We found an enemy EC at a location.
      */
-    EnemyEC,
+    EnemyEC(1, false, true),
     /**
      * We found a neutral EC, and attach its location and influence.
      */
-    NeutralEC,
+    NeutralEC(2, false, true),
     /**
      * We found a new friendly EC, and attach its ID.
      */
-    FriendlyEC,
+    FriendlyEC(3, true, false),
     /**
      * We're registering that an EC has converted from enemy or neutral to friendly,
      * with location.
      */
-    ConvertF,
+    ConvertF(4, false, true),
     /**
      * A message meant to be read by a friendly EC in range, attaching this robot's
      * home EC's ID. It causes the sending unit to switch home ECs to the one in
      * range.
      */
-    HelloEC,
+    HelloEC(5, true, false),
     /**
      * Robot: A robot is telling its home EC that there's a muckraker nearby scaring
      * a slanderer. EC: We're calling for (politician) reinforcements at a location.
      */
-    Reinforce,
+    Reinforce(6, false, true),
     /**
      * EC: Another EC is calling for reinforcements at a location.
      */
-    Reinforce2,
+    Reinforce2(7, false, true),
     /**
      * We found an edge, and enclose its location and, in the aux flag, whether it's
      * a Y edge.
      */
-    Edge,
+    Edge(8, false, true),
     /**
      * EC: Sending the X coordinate of our location as an absolute number in the ID
      * slot.
      */
-    MyLocationX,
+    MyLocationX(9, true, false),
     /**
      * EC: Sending the Y coordinate of our location as an absolute number in the ID
      * slot.
      */
-    MyLocationY;
+    MyLocationY(10, true, false),
+    /**
+     * Sentinel for a header we don't know about. It's never sent, and decoding it
+     * just means ignoring the flag.
+     */
+    Unknown(15, false, false);
 
+    /**
+     * The header nibble this type is sent with.
+     */
+    public final int header;
+    final boolean has_id;
+    final boolean has_loc;
+
+    Type(int header, boolean has_id, boolean has_loc) {
+      this.header = header;
+      this.has_id = has_id;
+      this.has_loc = has_loc;
+    }
+
+    /**
+     * Never throws; headers we don't know decode to `Unknown`.
+     */
     public static Type decode(int header) {
-      switch (header) {
-      case 0:
-        return None;
-      case 1:
-        return EnemyEC;
-      case 2:
-        return NeutralEC;
-      case 3:
-        return FriendlyEC;
-      case 4:
-        return ConvertF;
-      case 5:
-        return HelloEC;
-      case 6:
-        return Reinforce;
-      case 7:
-        return Reinforce2;
-      case 8:
-        return Edge;
-      case 9:
-        return MyLocationX;
-      case 10:
-        return MyLocationY;
-      default:
-        throw new RuntimeException("Can't decode header " + header);
-      }
+      return TYPES[header & 0b1111];
     }
 
     public int encode() {
-      switch (this) {
-      case None:
-        return 0;
-      case EnemyEC:
-        return 1;
-      case NeutralEC:
-        return 2;
-      case FriendlyEC:
-        return 3;
-      case ConvertF:
-        return 4;
-      case HelloEC:
-        return 5;
-      case Reinforce:
-        return 6;
-      case Reinforce2:
-        return 7;
-      case Edge:
-        return 8;
-      case MyLocationX:
-        return 9;
-      case MyLocationY:
-        return 10;
-      }
-      throw new RuntimeException("That's not possible");
+      return header;
     }
 
     public boolean hasID() {
-      switch (this) {
-      case FriendlyEC:
-      case HelloEC:
-      case MyLocationX:
-      case MyLocationY:
-        return true;
-      default:
-        return false;
-      }
+      return has_id;
+    }
+
+    public boolean hasLoc() {
+      return has_loc;
+    }
+  }
+
+  /**
+   * These are indexed by header nibble, so header dispatch is an array access
+   * instead of walking a switch. Headers we don't know map to `Type.Unknown`.
+   */
+  static final Type[] TYPES = new Type[16];
+  static final boolean[] HAS_ID = new boolean[16];
+  static final boolean[] HAS_LOC = new boolean[16];
+  static {
+    for (int i = 0; i < 16; i++)
+      TYPES[i] = Type.Unknown;
+    for (Type t : Type.values()) {
+      TYPES[t.header] = t;
+      HAS_ID[t.header] = t.has_id;
+      HAS_LOC[t.header] = t.has_loc;
     }
   }
 
@@ -207,7 +192,7 @@ public class Flag {
   }
 
   public static Type getType(int flag) {
-    return Type.decode((flag >> (FLAG_SIZE - TYPE_BITS - 1)) & 0b1111);
+    return TYPES[(flag >> (FLAG_SIZE - TYPE_BITS - 1)) & 0b1111];
   }
 
   public static Flag decode(MapLocation home_ec, int flag) {
@@ -218,14 +203,13 @@ public class Flag {
 
     int sig = flag >> (FLAG_SIZE - TYPE_BITS - 1);
     sig &= 0b1111;
-    Type type = Type.decode(sig);
+    Type type = TYPES[sig];
 
-    if (type == Type.None)
-      return new Flag(type);
-    else if (type.hasID()) {
+    if (HAS_ID[sig]) {
       int id = flag & ID_MASK;
       return new Flag(type, id);
-    }
+    } else if (!HAS_LOC[sig])
+      return new Flag(type);
 
     // At this point, we know it has a location, so if our reference point is null
     // we won't be able to decode it
@@ -260,7 +244,7 @@ public class Flag {
   public int encode(MapLocation home_ec, boolean is_slanderer) {
     int flag = (is_slanderer ? 1 : 0) << (FLAG_SIZE - 1);
 
-    int sig = type.encode();
+    int sig = type.header;
     flag |= sig << (FLAG_SIZE - TYPE_BITS - 1);
 
     if (type == Type.NeutralEC) {
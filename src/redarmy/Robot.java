@@ -197,6 +197,7 @@ public class Robot {
         case MyLocationY:
         case HelloEC:
         case None:
+        case Unknown:
           break;
         }
       } catch (GameActionException e) {
@@ -0,0 +1,105 @@
+package setbench;
+
+/**
+ * A hash set of positive ints (robot IDs), with open addressing and linear
+ * probing, so adding, checking and removing don't allocate anything; only
+ * growing does. IDs are handed out more or less in order, so the low bits are a
+ * good enough hash. 0 marks an empty slot, so it can't be in the set.
+ */
+public class IntSet {
+  int[] table;
+  int mask;
+  int size = 0;
+
+  /**
+   * `capacity` must be a power of two. The set grows when it gets half full, and
+   * allocating the table costs bytecode equal to its length.
+   */
+  public IntSet(int capacity) {
+    table = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(int key) {
+    int[] table = this.table;
+    int i = key & mask;
+    int k;
+    while ((k = table[i]) != 0) {
+      if (k == key)
+        return true;
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether it was new.
+   */
+  public boolean add(int key) {
+    int[] table = this.table;
+    int i = key & mask;
+    int k;
+    while ((k = table[i]) != 0) {
+      if (k == key)
+        return false;
+      i = (i + 1) & mask;
+    }
+    table[i] = key;
+    size++;
+    if (size * 2 > table.length)
+      grow();
+    return true;
+  }
+
+  /**
+   * Returns whether anything was actually removed.
+   */
+  public boolean remove(int key) {
+    int[] table = this.table;
+    int mask = this.mask;
+    int i = key & mask;
+    int k;
+    while ((k = table[i]) != key) {
+      if (k == 0)
+        return false;
+      i = (i + 1) & mask;
+    }
+
+    // Instead of leaving a tombstone, move back any later keys in the same run
+    // that would otherwise be cut off from their home slot by the hole at `i`
+    int j = i;
+    while ((k = table[j = (j + 1) & mask]) != 0) {
+      int home = k & mask;
+      // It can stay if its home is cyclically in (i, j]
+      if (i <= j ? (i < home && home <= j) : (i < home || home <= j))
+        continue;
+      table[i] = k;
+      i = j;
+    }
+    table[i] = 0;
+    size--;
+    return true;
+  }
+
+  /**
+   * Doubles the table. That's pretty expensive, around 10 bytecode per old slot,
+   * so pick a big enough capacity to start with.
+   */
+  void grow() {
+    int[] old = table;
+    table = new int[old.length * 2];
+    mask = table.length - 1;
+    for (int key : old) {
+      if (key != 0) {
+        int i = key & mask;
+        while (table[i] != 0)
+          i = (i + 1) & mask;
+        table[i] = key;
+      }
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package setbench;
+
+import battlecode.common.*;
+
+/**
+ * Measures the bytecode cost of the two sets starfleet has used for the EC's unit
+ * roster, at a few roster sizes, of the two ways to find out a unit on the roster
+ * is dead, and of boxed against primitive state. Run it as a team, e.g.
+ * `./gradlew run -PteamA=setbench`, and read what the EC prints. Other units just
+ * sit there.
+ */
+public strictfp class RobotPlayer {
+  static final int[] SIZES = { 50, 300, 1000 };
+  /**
+   * How many of each operation we average over.
+   */
+  static final int OPS = 20;
+  /**
+   * Robot IDs go up as units spawn, but not one at a time, since both teams share
+   * them.
+   */
+  static final int FIRST_ID = 10000;
+  static final int ID_STEP = 3;
+  /**
+   * How many units we read flags from in the liveness benchmark.
+   */
+  static final int ROSTER = 300;
+  /**
+   * Somewhere to put values so the loops we measure for overhead do the same work
+   * as the ones we're measuring.
+   */
+  static int sink;
+
+  public static void run(RobotController rc) throws GameActionException {
+    if (rc.getType() == RobotType.ENLIGHTENMENT_CENTER) {
+      for (int size : SIZES)
+        bench(size);
+      benchLiveness(rc);
+      benchBoxing(rc);
+    }
+    while (true)
+      Clock.yield();
+  }
+
+  static void bench(int size) {
+    StringSet strings = new StringSet();
+    IntSet ints = new IntSet(1024);
+    // Filling 1000 takes more than one turn, so yield every so often
+    for (int i = 0; i < size; i++) {
+      int id = FIRST_ID + i * ID_STEP;
+      strings.add(Integer.toString(id));
+      ints.add(id);
+      if (Clock.getBytecodesLeft() < 2000)
+        Clock.yield();
+    }
+    // Start measuring on a fresh turn
+    Clock.yield();
+
+    // New IDs, like a unit we just spawned
+    int fresh = FIRST_ID + size * ID_STEP;
+    // What the loop and working out the ID cost, so we can take it out
+    int start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      sink = fresh + i * ID_STEP;
+    int overhead = Clock.getBytecodeNum() - start;
+
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      strings.add(Integer.toString(fresh + i * ID_STEP));
+    int s_add = Clock.getBytecodeNum() - start - overhead;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      strings.contains(Integer.toString(FIRST_ID + i * ID_STEP));
+    int s_contains = Clock.getBytecodeNum() - start - overhead;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      strings.remove(Integer.toString(fresh + i * ID_STEP));
+    int s_remove = Clock.getBytecodeNum() - start - overhead;
+
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      ints.add(fresh + i * ID_STEP);
+    int i_add = Clock.getBytecodeNum() - start - overhead;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      ints.contains(FIRST_ID + i * ID_STEP);
+    int i_contains = Clock.getBytecodeNum() - start - overhead;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      ints.remove(fresh + i * ID_STEP);
+    int i_remove = Clock.getBytecodeNum() - start - overhead;
+
+    System.out.println(size + " IDs, bytecode per add/contains/remove: StringSet " + s_add / OPS + "/"
+        + s_contains / OPS + "/" + s_remove / OPS + ", IntSet " + i_add / OPS + "/" + i_contains / OPS + "/"
+        + i_remove / OPS);
+  }
+
+  /**
+   * Reads `ROSTER` flags that are all from dead units (IDs that were never
+   * handed out) the old way, catching the exception `getFlag()` throws, and the
+   * new way, checking `canGetFlag()` first. Then the same for a live unit (us),
+   * to see what the check costs when it passes.
+   *
+   * This hasn't been run on the engine yet, so the before/after cost is
+   * unmeasured. Counting only our own instructions, with each `rc` call as one,
+   * the check saves about 3 a dead read and costs about 4 a live one, but that
+   * leaves out what the engine charges for the exception, which is the point.
+   */
+  static void benchLiveness(RobotController rc) {
+    Clock.yield();
+    int dead = 0;
+    int start = Clock.getBytecodeNum();
+    for (int i = 0; i < ROSTER; i++) {
+      try {
+        rc.getFlag(i + 1);
+      } catch (GameActionException e) {
+        dead++;
+      }
+      // Exceptions are expensive enough that we need to yield partway through
+      if (i == ROSTER / 2) {
+        int half = Clock.getBytecodeNum() - start;
+        Clock.yield();
+        start = Clock.getBytecodeNum() - half;
+      }
+    }
+    int caught = Clock.getBytecodeNum() - start;
+
+    Clock.yield();
+    int dead_checked = 0;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < ROSTER; i++) {
+      if (!rc.canGetFlag(i + 1))
+        dead_checked++;
+    }
+    int checked = Clock.getBytecodeNum() - start;
+
+    Clock.yield();
+    int id = rc.getID();
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < ROSTER; i++) {
+      try {
+        rc.getFlag(id);
+      } catch (GameActionException e) {
+      }
+    }
+    int live_plain = Clock.getBytecodeNum() - start;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < ROSTER; i++) {
+      if (rc.canGetFlag(id)) {
+        try {
+          rc.getFlag(id);
+        } catch (GameActionException e) {
+        }
+      }
+    }
+    int live_checked = Clock.getBytecodeNum() - start;
+
+    System.out.println(ROSTER + " flags, " + dead + "/" + dead_checked + " dead by getFlag/canGetFlag. Bytecode for all dead: getFlag+catch " + caught
+        + ", canGetFlag " + checked + "; all live: getFlag " + live_plain + ", canGetFlag+getFlag " + live_checked);
+  }
+
+  /**
+   * starfleet's state the way it used to be, boxed, and the way it is now.
+   */
+  static Integer boxed_min_x, boxed_max_x, boxed_min_y, boxed_max_y, boxed_id;
+  static int min_x, max_x, min_y, max_y, edges, id;
+
+  /**
+   * Each of these is something starfleet does a few times a turn: the edge
+   * checks in `Model.isOnMap()`, comparing an ID against our home EC's, and
+   * updating the bounds slanderers use for a politician we sensed. Multiply by
+   * how often a unit does them to get what it saves per turn.
+   *
+   * This hasn't been run on the engine yet, so the savings are unmeasured, per op
+   * and per unit type. Counting one per JVM instruction and one per library call
+   * (which undercounts unboxing) gives boxed/primitive 28/32 for the edge check,
+   * 5/2 for the ID compare and 25/14 for the bounds.
+   */
+  static void benchBoxing(RobotController rc) {
+    Clock.yield();
+    MapLocation loc = rc.getLocation();
+    boxed_min_x = min_x = loc.x - 30;
+    boxed_max_x = max_x = loc.x + 30;
+    boxed_min_y = min_y = loc.y - 30;
+    boxed_max_y = max_y = loc.y + 30;
+    boxed_id = id = rc.getID();
+    edges = 0b1111;
+    int hits = 0;
+
+    // Each overhead loop does what its measured loops do besides the op itself
+    int start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++) {
+    }
+    int overhead = Clock.getBytecodeNum() - start;
+
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      if ((boxed_min_y != null && loc.y < boxed_min_y) || (boxed_max_y != null && loc.y > boxed_max_y)
+          || (boxed_min_x != null && loc.x < boxed_min_x) || (boxed_max_x != null && loc.x > boxed_max_x))
+        hits++;
+    int b_edges = Clock.getBytecodeNum() - start - overhead;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      if (((edges & 4) != 0 && loc.y < min_y) || ((edges & 8) != 0 && loc.y > max_y)
+          || ((edges & 1) != 0 && loc.x < min_x) || ((edges & 2) != 0 && loc.x > max_x))
+        hits++;
+    int p_edges = Clock.getBytecodeNum() - start - overhead;
+
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      sink = FIRST_ID + i;
+    overhead = Clock.getBytecodeNum() - start;
+
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      if (boxed_id == null || boxed_id != FIRST_ID + i)
+        hits++;
+    int b_id = Clock.getBytecodeNum() - start - overhead;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++)
+      if (id != FIRST_ID + i)
+        hits++;
+    int p_id = Clock.getBytecodeNum() - start - overhead;
+
+    // Politicians spread around us, like the ones a slanderer senses
+    boxed_min_x = boxed_max_x = boxed_min_y = boxed_max_y = null;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++) {
+      sink = loc.x + (i & 7) - 4;
+      sink = loc.y + (i >> 3) - 2;
+    }
+    overhead = Clock.getBytecodeNum() - start;
+
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++) {
+      int x = loc.x + (i & 7) - 4;
+      int y = loc.y + (i >> 3) - 2;
+      if (boxed_min_x == null || x < boxed_min_x)
+        boxed_min_x = x;
+      if (boxed_max_x == null || x > boxed_max_x)
+        boxed_max_x = x;
+      if (boxed_min_y == null || y < boxed_min_y)
+        boxed_min_y = y;
+      if (boxed_max_y == null || y > boxed_max_y)
+        boxed_max_y = y;
+    }
+    int b_bounds = Clock.getBytecodeNum() - start - overhead;
+    boolean seen = false;
+    start = Clock.getBytecodeNum();
+    for (int i = 0; i < OPS; i++) {
+      int x = loc.x + (i & 7) - 4;
+      int y = loc.y + (i >> 3) - 2;
+      if (!seen) {
+        seen = true;
+        min_x = max_x = x;
+        min_y = max_y = y;
+      } else {
+        if (x < min_x)
+          min_x = x;
+        else if (x > max_x)
+          max_x = x;
+        if (y < min_y)
+          min_y = y;
+        else if (y > max_y)
+          max_y = y;
+      }
+    }
+    int p_bounds = Clock.getBytecodeNum() - start - overhead;
+
+    System.out.println("Bytecode per op, boxed/primitive (" + hits + " hits): edge check " + b_edges / OPS + "/"
+        + p_edges / OPS + ", ID compare " + b_id / OPS + "/" + p_id / OPS + ", politician bounds " + b_bounds / OPS
+        + "/" + p_bounds / OPS);
+  }
+}
@@ -1,4 +1,4 @@
-package starfleet;
+package setbench;
 
 /**
  * A hashset of strings, implemented with a large string, since string
@@ -0,0 +1,182 @@
+package starfleet;
+
+import java.util.Arrays;
+import battlecode.common.*;
+
+/**
+ * Every EC we know about, friendly, neutral or enemy (guessed or not), in one
+ * list with a status for each, and indexed by location and ID so looking one up
+ * doesn't walk the list calling `ECInfo.equals()`.
+ *
+ * ECs stay where they are in the list for good, in the order we heard about
+ * them: an EC changing hands just changes its status, and one we forget about
+ * gets the status `NONE` and is left out of the indices. So an index into the
+ * list is a stable cursor, and iterating over one status is a walk over the list
+ * with `next()`. There aren't many ECs on a map, so the holes don't cost much.
+ *
+ * Go through the registry to change an EC's status, location, ID or guess, so
+ * the indices stay right and `SymmetryTracker` hears about it.
+ */
+public class ECRegistry {
+  static final int NONE = 0;
+  static final int FRIENDLY = 1;
+  static final int NEUTRAL = 2;
+  static final int ENEMY = 3;
+
+  ECInfo[] ecs = new ECInfo[16];
+  int size = 0;
+  int[] counts = new int[4];
+  /**
+   * From `locKey()` and ID to index in `ecs`.
+   */
+  IntMap by_loc = new IntMap(64);
+  IntMap by_id = new IntMap(64);
+  /**
+   * The ECs that were added or changed status, location or guess since
+   * `SymmetryTracker.sync()` last went through them, each once.
+   */
+  ECInfo[] changed = new ECInfo[16];
+  int nchanged = 0;
+
+  /**
+   * A packed `Loc`, which is exact and positive like `IntMap` needs.
+   */
+  static int locKey(MapLocation loc) {
+    return Loc.of(loc);
+  }
+
+  /**
+   * The length of the list, including ECs with the status `NONE`.
+   */
+  int size() {
+    return size;
+  }
+
+  ECInfo get(int i) {
+    return ecs[i];
+  }
+
+  int count(int status) {
+    return counts[status];
+  }
+
+  /**
+   * The index of the first EC at or after `from` with the given status, or -1.
+   */
+  int next(int status, int from) {
+    for (int i = from; i < size; i++)
+      if (ecs[i].status == status)
+        return i;
+    return -1;
+  }
+
+  /**
+   * The EC at `loc`, whatever its status, or null.
+   */
+  ECInfo at(MapLocation loc) {
+    if (loc == null)
+      return null;
+    int i = by_loc.get(locKey(loc));
+    return i == -1 ? null : ecs[i];
+  }
+
+  ECInfo withID(int id) {
+    int i = by_id.get(id);
+    return i == -1 ? null : ecs[i];
+  }
+
+  /**
+   * The EC we know with the same ID as `e` or, failing that, the same location;
+   * the same thing `ECInfo.equals()` checks.
+   */
+  ECInfo find(ECInfo e) {
+    ECInfo found = e.id != Model.NO_ID ? withID(e.id) : null;
+    return found != null ? found : at(e.loc);
+  }
+
+  /**
+   * Whether we know `e` and it has the given status.
+   */
+  boolean has(int status, ECInfo e) {
+    ECInfo found = find(e);
+    return found != null && found.status == status;
+  }
+
+  /**
+   * Adds `e`, which shouldn't match anything already there.
+   */
+  void add(ECInfo e, int status) {
+    if (size == ecs.length)
+      ecs = Arrays.copyOf(ecs, size * 2);
+    e.index = size;
+    e.status = status;
+    ecs[size++] = e;
+    counts[status]++;
+    if (e.loc != null)
+      by_loc.put(locKey(e.loc), e.index);
+    if (e.id != Model.NO_ID)
+      by_id.put(e.id, e.index);
+    touch(e);
+  }
+
+  void touch(ECInfo e) {
+    if (e.changed)
+      return;
+    if (nchanged == changed.length)
+      changed = Arrays.copyOf(changed, nchanged * 2);
+    e.changed = true;
+    changed[nchanged++] = e;
+  }
+
+  void setStatus(ECInfo e, int status) {
+    counts[e.status]--;
+    counts[status]++;
+    e.status = status;
+    touch(e);
+  }
+
+  void setGuessed(ECInfo e, Symmetry sym) {
+    e.guessed = sym;
+    touch(e);
+  }
+
+  /**
+   * Forgets `e`: it keeps its place in the list, but with the status `NONE`.
+   */
+  void remove(ECInfo e) {
+    if (e.loc != null)
+      by_loc.remove(locKey(e.loc));
+    if (e.id != Model.NO_ID)
+      by_id.remove(e.id);
+    setStatus(e, NONE);
+  }
+
+  /**
+   * Forgets the EC matching `e` if it has the given status, returning whether it
+   * did; like `ArrayList.remove()` on one of the old per-status lists.
+   */
+  boolean remove(int status, ECInfo e) {
+    ECInfo found = find(e);
+    if (found == null || found.status != status)
+      return false;
+    remove(found);
+    return true;
+  }
+
+  void setLoc(ECInfo e, MapLocation loc) {
+    if (e.loc != null)
+      by_loc.remove(locKey(e.loc));
+    e.loc = loc;
+    if (loc != null)
+      by_loc.put(locKey(loc), e.index);
+    touch(e);
+  }
+
+  void setID(ECInfo e, int id) {
+    if (e.id != Model.NO_ID)
+      by_id.remove(e.id);
+    e.id = id;
+    if (id != Model.NO_ID)
+      by_id.put(id, e.index);
+  }
+}
@@ -93,6 +93,12 @@ public class ECenter {
   static int MIN_SLAN_INF = 41;
 
   static Spawn nextSpawn() {
+    // These come from our roster, but the thresholds below were tuned for the
+    // units we could see. Slanderers mostly stay in range, so the roster count is
+    // close. The politicians we could see were mostly guards and slanderers that
+    // grew up, since attackers leave, so that's what `npols` counts.
+    int nslans = type_counts[UNIT_SLAN];
+    int npols = type_counts[UNIT_GUARD];
     if (nslans > 8)
       MIN_SLAN_INF = 107;
     else if (nslans > 3)
@@ -128,15 +134,19 @@ public class ECenter {
         : guard_inf;
     if (pol_inf_cursor % 2 == 0 && spend > 100) {
       ECInfo z = null;
-      for (ECInfo i : Model.neutral_ecs) {
+      ECRegistry ecs = Model.ecs;
+      for (int k = ecs.next(ECRegistry.NEUTRAL, 0); k != -1; k = ecs.next(ECRegistry.NEUTRAL, k + 1)) {
+        ECInfo i = ecs.get(k);
         int net = i.influence * 3 / 2;
         if (!i.attacked && pol_inf < net && spend >= net && rc.isReady()) {
           pol_inf = net;
           z = i;
         }
       }
-      if (z != null)
+      if (z != null) {
         z.attacked = true;
+        claim(z.loc);
+      }
     }
 
     // Guards have `inf % 2 == 1`, others don't.
@@ -166,7 +176,8 @@ public class ECenter {
       spent = spawn.influence;
       rc.buildRobot(spawn.type, dir, spawn.influence);
       MapLocation l = rc.adjacentLocation(dir);
-      addID(rc.senseRobotAtLocation(l).ID);
+      addUnit(rc.senseRobotAtLocation(l).ID, spawn.type, spawn.influence);
+      startBootstrap();
     } else {
       spent = 0;
     }
@@ -175,16 +186,40 @@ public class ECenter {
   // -- COMMUNICATION -- //
 
   /**
-   * The IDs of every unit this EC has spawned are kept in this list. `nempty`
-   * stores the number of empty spots on the list, `firstempty` the index of the
-   * first empty one, and `endidx` the index after which all slots are empty. If
-   * `firstempty == endidx`, there could also be empty slots before that.
+   * The IDs of every unit this EC has spawned (or adopted) are kept in the first
+   * `nunits` slots of this list, with no holes: when a unit dies, the last one
+   * moves into its slot. `last_flags` holds the last flag we read from the unit
+   * in each slot, and `slots` maps IDs to slots.
+   *
+   * We also keep what we know about each unit in the same slot: its type (see
+   * `UNIT_*`, where politicians are split into guards and attackers), the
+   * influence we spawned it with, the round it spawned, the last
+   * round it showed us something new, and the last location it reported, as
+   * `Flag.packLoc()` bits (which we can decode relative to us), or -1.
+   * `type_counts` counts the units of each type.
+   *
+   * We can't know the map size up front, so this starts big enough for most
+   * games; allocating it costs bytecode equal to its length.
+   */
+  static final int ROSTER_CAPACITY = 512;
+  static int[] ids = new int[ROSTER_CAPACITY];
+  static int[] last_flags = new int[ROSTER_CAPACITY];
+  static int[] unit_types = new int[ROSTER_CAPACITY];
+  static int[] unit_infs = new int[ROSTER_CAPACITY];
+  static int[] unit_spawned = new int[ROSTER_CAPACITY];
+  static int[] unit_flagged = new int[ROSTER_CAPACITY];
+  static int[] unit_locs = new int[ROSTER_CAPACITY];
+  /**
+   * The last round `pollHot()` read each unit, so `scanFlags()` can skip it.
    */
-  static int[] ids = new int[300];
-  static int nempty = 300;
-  static int firstempty = 0;
-  static int endidx = 0;
-  static StringSet id_set = new StringSet();
+  static int[] unit_polled = new int[ROSTER_CAPACITY];
+  static int nunits = 0;
+  static final int UNIT_POL = 0;
+  static final int UNIT_SLAN = 1;
+  static final int UNIT_MUCK = 2;
+  static final int UNIT_GUARD = 3;
+  static int[] type_counts = new int[4];
+  static IntMap slots = new IntMap(ROSTER_CAPACITY * 2);
 
   static RobotInfo[] nearby;
   /**
@@ -200,87 +235,135 @@ public class ECenter {
   static boolean is_muckraker_nearby = false;
 
   /**
-   * These store the number of friendly units of each type within sensing range of
-   * the EC, for deciding what to spawn.
+   * The number of friendly muckrakers within sensing range of the EC, for
+   * deciding what to spawn. We count politicians and slanderers with
+   * `type_counts` instead, but muckrakers go off scouting, and what we care about
+   * is whether there are any around.
    */
-  static int npols = 0;
-  static int nslans = 0;
   static int nmuks = 0;
 
-  static void addID(int id) {
+  /**
+   * Politicians we spawn to attack have even influence of at least 100 (see the
+   * end of `nextSpawn()`), and the rest are guards.
+   */
+  static int unitType(RobotType type, int influence) {
+    switch (type) {
+    case SLANDERER:
+      return UNIT_SLAN;
+    case MUCKRAKER:
+      return UNIT_MUCK;
+    default:
+      return influence >= 100 && influence % 2 == 0 ? UNIT_POL : UNIT_GUARD;
+    }
+  }
+
+  /**
+   * Adds a unit we spawned with `influence`, or adopted, in which case
+   * `influence` is whatever it has now.
+   */
+  static void addUnit(int id, RobotType type, int influence) {
     // Don't add it if it's already there
-    if (!id_set.add(Integer.toString(id)))
+    if (slots.get(id) != -1)
       return;
 
-    int len = ids.length;
-    if (endidx < len) {
-      if (firstempty == endidx)
-        firstempty++;
-      if (firstempty == len) {
-        // Find the first empty index
-        for (int i = 0; i < len; i++) {
-          if (ids[i] == 0) {
-            firstempty = i;
-            break;
-          }
-        }
-      }
-      ids[endidx] = id;
-      endidx++;
-      nempty--;
-    } else if (nempty > 0) {
-      nempty--;
-      ids[firstempty] = id;
-      if (nempty > 0) {
-        for (int i = firstempty + 1; i < len; i++) {
-          if (ids[i] == 0) {
-            firstempty = i;
-            break;
-          }
-        }
-      }
-    } else {
-      // Resize ids list; this costs `len * 3` bytecode, which isn't that bad!
-      // That's because Arrays.copyOf calls `newarray(newlen)` and then
-      // `System.arraycopy(len)`, both of which take bytecode equal to the length.
-      int new_len = len * 2;
-      ids = Arrays.copyOf(ids, new_len);
-      ids[len] = id;
-      nempty = len - 1;
-      firstempty = endidx = len + 1;
+    if (nunits == ids.length) {
+      // Resize the list; this costs `len * 3` bytecode for each array, since
+      // Arrays.copyOf calls `newarray(newlen)` and then `System.arraycopy(len)`,
+      // both of which take bytecode equal to the length.
+      int len = nunits * 2;
+      ids = Arrays.copyOf(ids, len);
+      last_flags = Arrays.copyOf(last_flags, len);
+      unit_types = Arrays.copyOf(unit_types, len);
+      unit_infs = Arrays.copyOf(unit_infs, len);
+      unit_spawned = Arrays.copyOf(unit_spawned, len);
+      unit_flagged = Arrays.copyOf(unit_flagged, len);
+      unit_locs = Arrays.copyOf(unit_locs, len);
+      unit_polled = Arrays.copyOf(unit_polled, len);
     }
+    int i = nunits++;
+    ids[i] = id;
+    last_flags[i] = 0;
+    int t = unitType(type, influence);
+    unit_types[i] = t;
+    type_counts[t]++;
+    unit_infs[i] = influence;
+    unit_spawned[i] = rc.getRoundNum();
+    unit_flagged[i] = 0;
+    unit_locs[i] = -1;
+    unit_polled[i] = 0;
+    slots.put(id, i);
+  }
+
+  /**
+   * Takes the unit in slot `i` off the list, moving the last unit into its slot.
+   * If `scanFlags()` has already been past slot `i` this time through, though,
+   * the last unit would miss a whole cycle there, so instead the last slot it's
+   * been past fills `i`, and the last unit fills that. The units it hasn't read
+   * yet stay together at the end.
+   */
+  static void removeUnit(int i) {
+    slots.remove(ids[i]);
+    type_counts[unit_types[i]]--;
+    int last = --nunits;
+    if (i < left_off) {
+      int j = --left_off;
+      if (i != j)
+        moveUnit(j, i);
+      i = j;
+    }
+    if (i != last)
+      moveUnit(last, i);
+    ids[last] = 0;
+  }
+
+  static void moveUnit(int from, int to) {
+    int id = ids[from];
+    ids[to] = id;
+    last_flags[to] = last_flags[from];
+    unit_types[to] = unit_types[from];
+    unit_infs[to] = unit_infs[from];
+    unit_spawned[to] = unit_spawned[from];
+    unit_flagged[to] = unit_flagged[from];
+    unit_locs[to] = unit_locs[from];
+    unit_polled[to] = unit_polled[from];
+    slots.put(id, to);
   }
 
   static int buff_muck_inf = 1;
   static int buff_muck_turn = 0;
 
   /**
-   * Returns whether to keep the unit sending the flag
+   * Puts together multi-flag messages from our units.
+   */
+  static Reassembly fragments = new Reassembly();
+
+  /**
+   * Returns whether to keep the unit `id` sending the flag
    */
-  static boolean processFlag(int iflag) {
-    Flag flag = Flag.decode(rc.getLocation(), iflag);
+  static boolean processFlag(int id, int flag) {
+    MapLocation ec_loc = rc.getLocation();
 
-    switch (flag.type) {
+    switch (Flag.getType(flag)) {
     case FriendlyEC:
-      Model.addFriendlyEC(new ECInfo(flag.id));
+      Model.addFriendlyEC(new ECInfo(Flag.id(flag)));
       break;
     case NeutralEC:
-      Model.addNeutralEC(new ECInfo(flag.loc, flag.influence));
+      Model.addNeutralEC(new ECInfo(Flag.loc(ec_loc, flag), Flag.neutralInfluence(flag)));
       break;
     case EnemyEC: {
-      ECInfo ecif = new ECInfo(flag.loc);
-      ecif.guessed = flag.sym;
-      Model.neutral_ecs.remove(ecif);
+      ECInfo ecif = new ECInfo(Flag.loc(ec_loc, flag));
+      ecif.guessed = Flag.symmetry(flag);
       Model.addEnemyEC(ecif);
       break;
     }
     case ConvertF: {
-      ECInfo ecif = new ECInfo(flag.loc);
-      boolean was_enemy = Model.enemy_ecs.remove(ecif);
-      if (was_enemy || Model.neutral_ecs.remove(ecif)) {
+      MapLocation loc = Flag.loc(ec_loc, flag);
+      ECInfo ecif = new ECInfo(loc);
+      boolean was_enemy = Model.ecs.remove(ECRegistry.ENEMY, ecif);
+      if (was_enemy || Model.ecs.remove(ECRegistry.NEUTRAL, ecif)) {
         if (Model.last_converted == null)
-          Model.last_converted = flag.loc;
-        if (was_enemy && Model.enemy_ecs.isEmpty() && rc.getRobotCount() > 200 && Model.knowsEdges()) {
+          Model.last_converted = loc;
+        if (was_enemy && Model.ecs.count(ECRegistry.ENEMY) == 0 && rc.getRobotCount() > 200 && Model.knowsEdges()) {
           // This was probably the last enemy EC, so enter cleanup mode
           Model.cleanup_mode = true;
         }
@@ -288,34 +371,40 @@ public class ECenter {
       break;
     }
     case Edge:
-      Model.setEdge(flag.aux_flag, flag.loc, rc.getLocation());
+      Model.setEdge(Flag.aux(flag), Flag.loc(ec_loc, flag), ec_loc);
       break;
 
     // If a slanderer is scared, ask for reinforcements
-    case Muckraker:
-      if ((flag.aux_flag || !Model.rpriority) && ((flag.aux_flag && !Model.rpriority) || Model.reinforce == null
-          || flag.loc.isWithinDistanceSquared(rc.getLocation(), Model.reinforce.distanceSquaredTo(rc.getLocation()))))
-        if (Model.addMuck(flag.loc)) {
-          Model.reinforce = flag.loc;
-          Model.rpriority = flag.aux_flag;
+    case Muckraker: {
+      int x = Flag.x(flag, ec_loc.x);
+      int y = Flag.y(flag, ec_loc.y);
+      int h = Loc.of(ec_loc);
+      boolean aux_flag = Flag.aux(flag);
+      if ((aux_flag || !Model.rpriority) && ((aux_flag && !Model.rpriority) || Model.reinforce == null
+          || Loc.dist2(Loc.pack(x, y), h) <= Loc.dist2(Loc.of(Model.reinforce), h)))
+        if (Model.addMuck(x, y)) {
+          Model.reinforce = new MapLocation(x, y);
+          Model.rpriority = aux_flag;
         }
-      if (flag.influence >= buff_muck_inf) {
-        buff_muck_inf = flag.influence;
+      int conv = Flag.muckConviction(flag);
+      if (conv >= buff_muck_inf) {
+        buff_muck_inf = conv;
         buff_muck_turn = rc.getRoundNum();
       }
       break;
+    }
 
     // Remove the unit if it's being adopted by another EC
     case AdoptMe:
-      return flag.id == rc.getID();
+      return Flag.id(flag) == rc.getID();
 
     case EnemyCenter:
       if (Model.guessed == null)
-        Model.guessSymmetry(flag.loc);
+        Model.guessSymmetry(Flag.loc(ec_loc, flag));
       break;
     case WrongSymmetry:
       if (Model.unreported_wrong == null && rc.getRoundNum() - Model.wrong_sym_turn >= 5) {
-        Model.unreported_wrong = Symmetry.decode(flag.id);
+        Model.unreported_wrong = Symmetry.decode(Flag.id(flag));
         if (Model.unreported_wrong == null)
           Model.unreported_wrong = Model.guessed;
         Model.wrongSymmetry(Model.unreported_wrong, true);
@@ -323,87 +412,447 @@ public class ECenter {
       }
       break;
 
+    case Fragment: {
+      int message = fragments.add(id, flag, rc.getRoundNum());
+      if (message != -1 && Flag.fragKind(flag) == Flag.FRAG_NEUTRAL_EC) {
+        MapLocation loc = new MapLocation(Flag.unpackX(message, ec_loc.x), Flag.unpackY(message, ec_loc.y));
+        int influence = message >> Flag.FRAG_DATA_BITS;
+        // If we already had it from a Packed flag, it was rounded, so fix it
+        if (!Model.addNeutralEC(new ECInfo(loc, influence))) {
+          ECInfo ecif = Model.ecs.at(loc);
+          if (ecif != null && ecif.status == ECRegistry.NEUTRAL)
+            ecif.influence = influence;
+        }
+      }
+      break;
+    }
+
     // These aren't possible for a robot
     case Income:
-    case CleanupMode:
+    case Packed:
+    case Digest:
     case Muckraker2:
-    case MyLocationX:
-    case MyLocationY:
     case None:
+    case Unknown:
       break;
     }
     return true;
   }
 
   /**
-   * We don't have time to go through the whole IDs list each turn, so we store
-   * the index where we left of last time and start from there.
+   * We might not have time to go through the whole IDs list each turn, so we
+   * store the index where we left of last time and start from there.
    */
   static int left_off = 0;
+  /**
+   * How many flags we didn't process because the unit was still showing the
+   * same one as last time we looked. Only counted with `RobotPlayer.DEBUG_STATS`
+   * on.
+   */
+  static int skipped_flags = 0;
+  /**
+   * How many rounds it took to get through the whole list last time, which we
+   * tell our units so they show each flag long enough for us to see it. 0 means
+   * we haven't got through it yet.
+   */
+  static int poll_cycle = 0;
+  static int cycle_start_round = 0;
+  static final int MUCK_HEADER = Flag.Type.Muckraker.header << Flag.HEADER_SHIFT;
+  /**
+   * How much bytecode we leave for `showFlag()`, `spawn()` and `doBid()` after
+   * reading flags.
+   */
+  static final int SCAN_RESERVE = 4000;
+  /**
+   * We read flags in chunks of at most this many units, checking how much
+   * bytecode is left before each one, so a few expensive flags can't take us over.
+   */
+  static final int SCAN_CHUNK = 64;
+  /**
+   * A running average of how much bytecode reading one unit's flag costs,
+   * measured as we go. It starts out as a guess: 11 for a dead unit, about 25
+   * for one showing the same flag as last time, which is most of them, and more
+   * for a new flag depending on `processFlag()`.
+   */
+  static int unit_cost = 30;
+
+  /**
+   * A few units, like scouts near the enemy or guards near muckrakers, send
+   * almost all the flags. When a unit shows us something new, it goes in the hot
+   * tier for `HOT_ROUNDS` rounds (which starts over whenever it shows something
+   * else), and we read those every turn before everyone else. `hot_ids` holds
+   * their IDs, since units move around the list, and `hot_until` the last round
+   * they're hot.
+   *
+   * The rest of the list is the cold tier, which we go through with whatever
+   * bytecode is left. For tuning, the `*_polls` and `*_hits` counters say how many
+   * flags we read in each tier, and how many of those were new; they're only
+   * counted with `RobotPlayer.DEBUG_STATS` on.
+   */
+  static final int HOT_CAPACITY = 32;
+  static final int HOT_ROUNDS = 20;
+  static int[] hot_ids = new int[HOT_CAPACITY];
+  static int[] hot_until = new int[HOT_CAPACITY];
+  static int nhot = 0;
+  static int hot_polls = 0;
+  static int hot_hits = 0;
+  static int cold_polls = 0;
+  static int cold_hits = 0;
+
+  /**
+   * The round, so we don't need to ask for it for every unit.
+   */
+  static int scan_round;
 
   static void updateDistantFlags() {
-    // Bytecode costs (per loop):
-    // For a known-dead unit: 11
-    // For a newly-dead unit: 20 (I'm pretty sure getFlag throwing doesn't count)
-    // For an alive unit: 20+5
-    // For a flagging unit: 20+5 + flag processing cost
-    // If we assume on average, one unit died, 1/4 are dead already, and 1/20 are
-    // flagging, then it takes `20 + 0.25n*11 + 0.75n*25 + 0.75*0.05n*<processing>`
-    // If we say processing takes 200, then it's `20 + 29n`
-    // Which is around `29n`, so we can do 300 units in about 8700 bytecodes
-    // That's what we'll do each turn.
-    int end = Math.min(left_off + 300, endidx);
-    for (int i = left_off; i < end; i++) {
-      int id = ids[i];
-      if (id != 0) {
-        try {
-          int flag = rc.getFlag(id);
-          if ((flag & Flag.HEADER_MASK) != 0) {
-            if (!processFlag(flag)) {
-              id_set.remove(Integer.toString(ids[i]));
-              nempty++;
-              ids[i] = 0;
-            }
-          }
-        } catch (GameActionException e) {
-          // The unit is dead, so add that
-          id_set.remove(Integer.toString(ids[i]));
-          nempty++;
-          ids[i] = 0;
+    scan_round = rc.getRoundNum();
+    if (Clock.getBytecodesLeft() > SCAN_RESERVE)
+      pollHot();
+
+    // We don't want to go through the list more than once in one turn
+    int remaining = nunits;
+    while (remaining > 0) {
+      int n = Math.min(Math.min((Clock.getBytecodesLeft() - SCAN_RESERVE) / unit_cost, remaining), SCAN_CHUNK);
+      if (n <= 0)
+        break;
+      int start = Clock.getBytecodeNum();
+      scanFlags(n);
+      // Weight the new measurement by a quarter, and don't let it hit 0
+      unit_cost = Math.max((unit_cost * 3 + (Clock.getBytecodeNum() - start) / n) / 4, 5);
+      remaining -= n;
+    }
+  }
+
+  static void pollHot() {
+    int round = rc.getRoundNum();
+    for (int k = 0; k < nhot; k++) {
+      int slot = slots.get(hot_ids[k]);
+      if (slot != -1) {
+        if (RobotPlayer.DEBUG_STATS)
+          hot_polls++;
+        unit_polled[slot] = round;
+        if (readFlag(slot)) {
+          if (RobotPlayer.DEBUG_STATS)
+            hot_hits++;
+          hot_until[k] = round + HOT_ROUNDS;
         }
       }
+      // Demote it if it's gone or has gone quiet
+      if (slot == -1 || hot_until[k] < round) {
+        nhot--;
+        hot_ids[k] = hot_ids[nhot];
+        hot_until[k] = hot_until[nhot];
+        k--;
+      }
+    }
+  }
+
+  /**
+   * Puts the unit `id` in the hot tier, or keeps it there longer. If the tier's
+   * full, it replaces the unit that would go cold soonest.
+   */
+  static void promote(int id) {
+    int until = rc.getRoundNum() + HOT_ROUNDS;
+    int soonest = 0;
+    for (int k = 0; k < nhot; k++) {
+      if (hot_ids[k] == id) {
+        hot_until[k] = until;
+        return;
+      }
+      if (hot_until[k] < hot_until[soonest])
+        soonest = k;
+    }
+    int k = nhot < HOT_CAPACITY ? nhot++ : soonest;
+    hot_ids[k] = id;
+    hot_until[k] = until;
+  }
+
+  /**
+   * Reads the flags of the next `n` units on the list, starting at `left_off`
+   * and wrapping around to the start.
+   */
+  static void scanFlags(int n) {
+    int i = left_off;
+    for (; n > 0 && nunits > 0; n--) {
+      if (i >= nunits) {
+        // We got through the whole list, so go back to the start. The first time,
+        // we don't know when we started, since the list was empty.
+        i = 0;
+        // So `removeUnit()` knows we're back at the start
+        left_off = 0;
+        int round = rc.getRoundNum();
+        if (cycle_start_round != 0)
+          poll_cycle = round + 1 - cycle_start_round;
+        cycle_start_round = round + 1;
+      }
+
+      // We just read the hot ones
+      if (unit_polled[i] == scan_round) {
+        i++;
+        continue;
+      }
+      int id = ids[i];
+      if (RobotPlayer.DEBUG_STATS)
+        cold_polls++;
+      if (readFlag(i)) {
+        if (RobotPlayer.DEBUG_STATS)
+          cold_hits++;
+        promote(id);
+      }
+      // If it was removed, another unit moved into its slot, which we haven't read
+      if (ids[i] == id)
+        i++;
+    }
+    left_off = i;
+  }
+
+  /**
+   * Reads and processes the flag of the unit in slot `i` of `ids`, and removes
+   * the unit if it's dead. Returns whether it was showing something new.
+   */
+  static boolean readFlag(int i) {
+    // This doesn't go through FlagCache's memo, since that would cost more than
+    // the getFlag() it saves. `scanFlags()` skips hot units, so nothing's read twice
+    // in one turn.
+    int id = ids[i];
+    int flag = FlagCache.read(id);
+    if (flag == FlagCache.DEAD) {
+      removeUnit(i);
+      return false;
+    }
+    // Slanderers turn into politicians after a while, and then stop setting the
+    // slanderer bit. A flag of 0 means the unit hasn't set one yet. They stay
+    // around our slanderers, so we count them as guards.
+    if (unit_types[i] == UNIT_SLAN && flag != 0 && !Flag.isSlanderer(flag)) {
+      unit_types[i] = UNIT_GUARD;
+      type_counts[UNIT_SLAN]--;
+      type_counts[UNIT_GUARD]++;
+    }
+    int header = flag & Flag.HEADER_MASK;
+    // We forget where muckrakers are every turn, so those we process anyway
+    if (flag != last_flags[i] || header == MUCK_HEADER) {
+      boolean is_new = flag != last_flags[i] && header != 0;
+      last_flags[i] = flag;
+      if (is_new) {
+        unit_flagged[i] = scan_round;
+        if (Flag.hasLoc(flag))
+          unit_locs[i] = Flag.locBits(flag);
+      }
+      if (header != 0 && !processFlag(id, flag))
+        removeUnit(i);
+      return is_new;
+    } else if (RobotPlayer.DEBUG_STATS && header != 0) {
+      skipped_flags++;
     }
-    // Go back to the start next turn if we finished
-    left_off = end == endidx ? 0 : end;
+    return false;
   }
 
   /**
-   * 0: sending x, 1: sending y, 2: done.
+   * How far we are through sending our location (as two Fragments) and income,
+   * 3 meaning done. `loc_seq` is the sequence bit of the Fragments.
    */
   static int loc_send_stage = 0;
+  static int loc_seq = 0;
   /**
    * These all describe things we need to send, instead of using a queue like
-   * Robot does. We reset most of them when we've sent everything, so we
-   * constantly repeat all the information we know.
+   * Robot does. We reset most of them when we've sent everything, and go again if
+   * there might be units that don't know it all yet (see below).
    */
   static int enemy_ec_cursor = 0;
   static int friendly_ec_cursor = 0;
   static int neutral_ec_cursor = 0;
-  static int edge_cursor = 0;
+  /**
+   * Which of the facts in `nextFact()` we're on.
+   */
+  static int fact_cursor = 0;
   static boolean did_reinforce_last_turn = false;
+  /**
+   * We only repeat everything we know if it's changed since last time, if we've
+   * spawned a unit since the last repetition started, or every `RESYNC_ROUNDS`
+   * rounds just in case. New units get a bootstrap first (see `nextBootstrap()`)
+   * and then the next repetition. Otherwise we alternate our digest and income,
+   * and our flag is free for muckraker reports etc. whenever we need it.
+   * `cycle_digest` is the digest when we started the current repetition, which
+   * we send first so units that already know it all can skip it, and
+   * `synced_digest` the one from the last one we finished, which started in
+   * `synced_round`.
+   */
+  static final int RESYNC_ROUNDS = 50;
+  static boolean cycle_open = false;
+  static int cycle_digest = -1;
+  static int cycle_round = 0;
+  static int synced_digest = -1;
+  static int synced_round = 0;
+  static int last_sync_round = 0;
+  static int last_bootstrap_round = -1;
+  static boolean quiet_income = false;
+
+  /**
+   * Right after we spawn a unit, we send it the most important things we know,
+   * so it doesn't have to wait for the whole cycle to come around: edges and our
+   * symmetry guess, the `BOOTSTRAP_NEUTRAL_ECS` neutral ECs closest to us (a
+   * politician's first target), the first `BOOTSTRAP_ENEMY_ECS` confirmed enemy
+   * ECs, and then our income, which ends it. Friendly ECs, our location and
+   * anything else come in the full cycle after it. If we spawn another unit in
+   * the middle of one, we send another once this one's done, but with one normal
+   * flag in between, so we don't starve the rest of the cycle when we're
+   * spawning every round.
+   */
+  static final int BOOTSTRAP_NEUTRAL_ECS = 2;
+  static final int BOOTSTRAP_ENEMY_ECS = 2;
+  static boolean bootstrap_active = false;
+  static boolean bootstrap_pending = false;
+  static int bootstrap_fact = 0;
+  static int bootstrap_ec = 0;
+  static int bootstrap_ecs_sent = 0;
+  /**
+   * The registry indices of the neutral ECs we've sent in this bootstrap.
+   */
+  static int[] bootstrap_neutrals = new int[BOOTSTRAP_NEUTRAL_ECS];
+  static int bootstrap_neutrals_sent = 0;
+  /**
+   * How many bootstraps we've sent and how many flags they took in total. Only
+   * counted with `RobotPlayer.DEBUG_STATS` on.
+   */
+  static int bootstraps = 0;
+  static int bootstrap_flags = 0;
+
+  static void startBootstrap() {
+    if (bootstrap_active) {
+      bootstrap_pending = true;
+      return;
+    }
+    bootstrap_active = true;
+    bootstrap_fact = 0;
+    bootstrap_ec = 0;
+    bootstrap_ecs_sent = 0;
+    bootstrap_neutrals_sent = 0;
+    if (RobotPlayer.DEBUG_STATS)
+      bootstraps++;
+  }
 
-  static Flag nextFlag() throws GameActionException {
+  static int nextBootstrap() {
+    if (RobotPlayer.DEBUG_STATS)
+      bootstrap_flags++;
+    int fact0 = 0;
+    while (bootstrap_fact < NUM_FACTS) {
+      int fact = fact(bootstrap_fact++);
+      if (fact == 0)
+        continue;
+      if (fact0 != 0)
+        return Flag.encodePacked(fact0, fact);
+      fact0 = fact;
+    }
+    if (fact0 != 0)
+      return Flag.encodePacked(fact0, 0);
+
+    if (bootstrap_neutrals_sent < BOOTSTRAP_NEUTRAL_ECS) {
+      ECInfo ec = nearestNeutral();
+      if (ec != null) {
+        bootstrap_neutrals[bootstrap_neutrals_sent++] = ec.index;
+        return Flag.encodeLoc(Flag.Type.NeutralEC, Flag.neutralBits(ec.influence), ec.loc, false);
+      }
+      bootstrap_neutrals_sent = BOOTSTRAP_NEUTRAL_ECS;
+    }
+
+    // Guesses can wait for the normal cycle
+    while (bootstrap_ecs_sent < BOOTSTRAP_ENEMY_ECS
+        && (bootstrap_ec = Model.ecs.next(ECRegistry.ENEMY, bootstrap_ec)) != -1) {
+      ECInfo ec = Model.ecs.get(bootstrap_ec++);
+      if (ec.guessed == null) {
+        bootstrap_ecs_sent++;
+        return Flag.encodeLoc(Flag.Type.EnemyEC, 0, ec.loc, false);
+      }
+    }
+
+    bootstrap_active = false;
+    last_bootstrap_round = rc.getRoundNum();
+    return Flag.encodeIncome(income, poll_cycle, Model.cleanup_mode);
+  }
+
+  /**
+   * The closest neutral EC to us that this bootstrap hasn't sent yet, or null.
+   */
+  static ECInfo nearestNeutral() {
+    ECRegistry ecs = Model.ecs;
+    MapLocation here = rc.getLocation();
+    ECInfo best = null;
+    int best_d2 = Integer.MAX_VALUE;
+    for (int k = ecs.next(ECRegistry.NEUTRAL, 0); k != -1; k = ecs.next(ECRegistry.NEUTRAL, k + 1)) {
+      boolean sent = false;
+      for (int j = 0; j < bootstrap_neutrals_sent; j++)
+        sent |= bootstrap_neutrals[j] == k;
+      ECInfo ec = ecs.get(k);
+      if (sent || ec.loc == null)
+        continue;
+      int d2 = here.distanceSquaredTo(ec.loc);
+      if (d2 < best_d2) {
+        best = ec;
+        best_d2 = d2;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Every `SYNC_PERIOD` rounds, our flag is for the other ECs instead of our
+   * units, if there are any and we have something to tell them: first neutral
+   * ECs we've claimed, so they don't send politicians after them too, then the
+   * enemy ECs we've confirmed, one at a time. Other ECs read our flag every turn,
+   * so they see it whichever order we move in, and with `k` things to tell them
+   * they hear everything within `SYNC_PERIOD * k` rounds, unless we have a
+   * muckraker to report. These are `Flag.FRAG_EC_SYNC` messages, which our
+   * units ignore.
+   */
+  static final int SYNC_PERIOD = 4;
+  static final int MAX_CLAIMS = 8;
+  static MapLocation[] claims = new MapLocation[MAX_CLAIMS];
+  static int nclaims = 0;
+  static int sync_ec_cursor = 0;
+
+  static void claim(MapLocation loc) {
+    if (nclaims < MAX_CLAIMS)
+      claims[nclaims++] = loc;
+  }
+
+  /**
+   * Returns the flag for our sync slot, or -1 if there's nothing to send and our
+   * units can have it.
+   */
+  static int nextSync() {
+    ECRegistry ecs = Model.ecs;
+    if (ecs.count(ECRegistry.FRIENDLY) == 0)
+      return -1;
+    if (nclaims > 0)
+      return Flag.encodeSync(Flag.SYNC_CLAIM, claims[--nclaims]);
+
+    int n = ecs.size();
+    for (int k = 0; k < n; k++) {
+      if (sync_ec_cursor >= n)
+        sync_ec_cursor = 0;
+      ECInfo ec = ecs.get(sync_ec_cursor++);
+      if (ec.status == ECRegistry.ENEMY && ec.guessed == null)
+        return Flag.encodeSync(Flag.SYNC_ENEMY_EC, ec.loc);
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the encoded flag to show this turn.
+   */
+  static int nextFlag() throws GameActionException {
+    MapLocation loc = rc.getLocation();
     if (!did_reinforce_last_turn && Model.reinforce != null) {
-      Flag flag = new Flag(Flag.Type.Muckraker, Model.rpriority, Model.reinforce);
-      rc.setIndicatorLine(rc.getLocation(), Model.reinforce, 0, 0, 255);
+      int flag = Flag.encodeLoc(Flag.Type.Muckraker, Flag.auxBits(Model.rpriority), Model.reinforce, false);
+      rc.setIndicatorLine(loc, Model.reinforce, 0, 0, 255);
       did_reinforce_last_turn = true;
       Model.rpriority = false;
       Model.reinforce = null;
       Model.reinforce2 = null;
       return flag;
     } else if (!did_reinforce_last_turn && Model.reinforce2 != null) {
-      Flag flag = new Flag(Flag.Type.Muckraker2, Model.rpriority, Model.reinforce2);
-      rc.setIndicatorLine(rc.getLocation(), Model.reinforce2, 0, 127, 255);
+      int flag = Flag.encodeLoc(Flag.Type.Muckraker2, Flag.auxBits(Model.rpriority), Model.reinforce2, false);
+      rc.setIndicatorLine(loc, Model.reinforce2, 0, 127, 255);
       did_reinforce_last_turn = true;
       Model.rpriority = false;
       Model.reinforce2 = null;
@@ -411,82 +860,155 @@ public class ECenter {
     }
     did_reinforce_last_turn = false;
 
+    // Muckraker reports can't wait, but everything else can
+    if (rc.getRoundNum() % SYNC_PERIOD == 0) {
+      int flag = nextSync();
+      if (flag != -1)
+        return flag;
+    }
+
     if (Model.unreported_wrong != null) {
-      Flag flag = new Flag(Flag.Type.WrongSymmetry, Model.unreported_wrong.encode());
+      int flag = Flag.encodeID(Flag.Type.WrongSymmetry, Model.unreported_wrong.encode(), false);
       Model.unreported_wrong = null;
       return flag;
     }
 
     if (Model.last_converted != null) {
-      rc.setIndicatorLine(rc.getLocation(), Model.last_converted, 255, 0, 255);
-      Flag flag = new Flag(Flag.Type.ConvertF, Model.last_converted);
+      rc.setIndicatorLine(loc, Model.last_converted, 255, 0, 255);
+      int flag = Flag.encodeLoc(Flag.Type.ConvertF, 0, Model.last_converted, false);
       Model.last_converted = null;
       return flag;
     }
 
+    if (bootstrap_active)
+      return nextBootstrap();
+    if (bootstrap_pending) {
+      // It starts next turn
+      bootstrap_pending = false;
+      startBootstrap();
+    }
+
+    if (!cycle_open) {
+      int digest = Model.digest();
+      if (digest == synced_digest && synced_round > last_bootstrap_round
+          && rc.getRoundNum() - last_sync_round < RESYNC_ROUNDS) {
+        // Everyone knows everything already
+        quiet_income = !quiet_income;
+        if (quiet_income)
+          return Flag.encodeIncome(income, poll_cycle, Model.cleanup_mode);
+        else
+          return Flag.encodeDigest(digest);
+      }
+      cycle_digest = digest;
+      cycle_round = rc.getRoundNum();
+      cycle_open = true;
+      // Units skip rebroadcasts while the last digest they saw matches theirs, so
+      // tell them what this cycle has
+      return Flag.encodeDigest(digest);
+    }
+
     // If we need to share our location, do that
     if (loc_send_stage < 3) {
       loc_send_stage++;
-      if (loc_send_stage == 1)
-        return new Flag(Flag.Type.MyLocationX, rc.getLocation().x);
-      else if (loc_send_stage == 2)
-        return new Flag(Flag.Type.MyLocationY, rc.getLocation().y);
+      if (loc_send_stage == 1) {
+        loc_seq ^= 1;
+        return Flag.encodeFragment(Flag.FRAG_EC_LOCATION, loc_seq, 0, loc.x, false);
+      } else if (loc_send_stage == 2)
+        return Flag.encodeFragment(Flag.FRAG_EC_LOCATION, loc_seq, 1, loc.y, false);
       else if (loc_send_stage == 3)
-        return new Flag(Flag.Type.Income, income);
+        return Flag.encodeIncome(income, poll_cycle, Model.cleanup_mode);
     }
 
-    // Then share friendly ECs
-    if (friendly_ec_cursor < Model.friendly_ecs.size()) {
-      ECInfo ec = Model.friendly_ecs.get(friendly_ec_cursor++);
-      return new Flag(Flag.Type.FriendlyEC, ec.id);
+    // Then share friendly ECs. The cursors are indices into the registry, which
+    // don't move when ECs change hands.
+    ECRegistry ecs = Model.ecs;
+    if (friendly_ec_cursor != -1 && (friendly_ec_cursor = ecs.next(ECRegistry.FRIENDLY, friendly_ec_cursor)) != -1) {
+      ECInfo ec = ecs.get(friendly_ec_cursor++);
+      return Flag.encodeID(Flag.Type.FriendlyEC, ec.id, false);
     }
 
-    // Otherwise, if we have enemy ECs stored, share those
-    if (neutral_ec_cursor < Model.neutral_ecs.size()) {
-      ECInfo ec = Model.neutral_ecs.get(neutral_ec_cursor++);
-      return Flag.neutralEC(ec.loc, ec.influence);
+    // Otherwise, if we have neutral ECs stored, share those
+    if (neutral_ec_cursor != -1 && (neutral_ec_cursor = ecs.next(ECRegistry.NEUTRAL, neutral_ec_cursor)) != -1) {
+      ECInfo ec = ecs.get(neutral_ec_cursor++);
+      return Flag.encodeLoc(Flag.Type.NeutralEC, Flag.neutralBits(ec.influence), ec.loc, false);
     }
 
     // Otherwise, if we have enemy ECs stored, share those
-    if (enemy_ec_cursor < Model.enemy_ecs.size()) {
-      ECInfo ec = Model.enemy_ecs.get(enemy_ec_cursor++);
-      return Flag.guessEnemyEC(ec.loc, ec.guessed);
+    if (enemy_ec_cursor != -1 && (enemy_ec_cursor = ecs.next(ECRegistry.ENEMY, enemy_ec_cursor)) != -1) {
+      ECInfo ec = ecs.get(enemy_ec_cursor++);
+      return Flag.encodeLoc(Flag.Type.EnemyEC, Flag.symmetryBits(ec.guessed), ec.loc, false);
     }
 
-    if (Model.cleanup_mode) {
-      // Make sure we send out enemy ECs if we find them
-      enemy_ec_cursor = 0;
-      return new Flag(Flag.Type.CleanupMode);
-    }
+    // And send edges and our symmetry guess, two at a time
+    int fact0 = nextFact();
+    int fact1 = nextFact();
+    if (fact0 != 0)
+      return Flag.encodePacked(fact0, fact1);
+
+    // Reset all the cursors
+    friendly_ec_cursor = 0;
+    neutral_ec_cursor = 0;
+    enemy_ec_cursor = 0;
+    loc_send_stage = 0;
+    fact_cursor = 0;
+    cycle_open = false;
+
+    // Finish with our digest, so units that followed along know they're in sync.
+    // If we found an enemy EC in cleanup mode, it changes the digest, so we'll go
+    // again and send it out.
+    synced_digest = cycle_digest;
+    synced_round = cycle_round;
+    last_sync_round = rc.getRoundNum();
+    return Flag.encodeDigest(cycle_digest);
+  }
 
-    // And send edges
-    edge_cursor++;
-    MapLocation loc = rc.getLocation();
-    if (Model.minX != null && edge_cursor <= 1) {
-      return new Flag(Flag.Type.Edge, false, new MapLocation(Model.minX, loc.y));
-    } else if (Model.maxX != null && edge_cursor <= 2) {
-      return new Flag(Flag.Type.Edge, false, new MapLocation(Model.maxX, loc.y));
-    } else if (Model.minY != null && edge_cursor <= 3) {
-      return new Flag(Flag.Type.Edge, true, new MapLocation(loc.x, Model.minY));
-    } else {
-      // Reset all the cursors
-      friendly_ec_cursor = 0;
-      neutral_ec_cursor = 0;
-      enemy_ec_cursor = 0;
-      loc_send_stage = 0;
-      edge_cursor = 0;
-
-      if (Model.maxY != null) {
-        return new Flag(Flag.Type.Edge, true, new MapLocation(loc.x, Model.maxY));
-      }
+  /**
+   * Returns the next fact to put in a Packed flag and advances `fact_cursor`, or
+   * returns 0 if we've sent them all this cycle.
+   */
+  static int nextFact() {
+    while (fact_cursor < NUM_FACTS) {
+      int fact = fact(fact_cursor++);
+      if (fact != 0)
+        return fact;
     }
+    return 0;
+  }
 
-    // Nothing else to send
-    return new Flag(Flag.Type.None);
+  static final int NUM_FACTS = 5;
+
+  /**
+   * Fact number `i` of the ones we send in Packed flags, or 0 if we don't know
+   * it.
+   */
+  static int fact(int i) {
+    switch (i) {
+    case 0:
+      if (Model.hasEdge(Model.EDGE_MIN_X))
+        return Flag.edgeFact(false, false, Model.minX);
+      break;
+    case 1:
+      if (Model.hasEdge(Model.EDGE_MAX_X))
+        return Flag.edgeFact(false, true, Model.maxX);
+      break;
+    case 2:
+      if (Model.hasEdge(Model.EDGE_MIN_Y))
+        return Flag.edgeFact(true, false, Model.minY);
+      break;
+    case 3:
+      if (Model.hasEdge(Model.EDGE_MAX_Y))
+        return Flag.edgeFact(true, true, Model.maxY);
+      break;
+    case 4:
+      if (Model.guessed != null)
+        return Flag.tagFact(Flag.FACT_SYMMETRY, Model.guessed.encode());
+      break;
+    }
+    return 0;
   }
 
   static void showFlag() throws GameActionException {
-    rc.setFlag(nextFlag().encode(rc.getLocation(), false));
+    rc.setFlag(nextFlag());
   }
 
   static void update() throws GameActionException {
@@ -495,7 +1017,8 @@ public class ECenter {
       buff_muck_turn = rc.getRoundNum();
     }
 
-    for (ECInfo i : Model.enemy_ecs) {
+    for (int k = Model.ecs.next(ECRegistry.ENEMY, 0); k != -1; k = Model.ecs.next(ECRegistry.ENEMY, k + 1)) {
+      ECInfo i = Model.ecs.get(k);
       if (i.guessed == null)
         rc.setIndicatorLine(rc.getLocation(), i.loc, 0, 0, 0);
       else
@@ -513,21 +1036,24 @@ public class ECenter {
     total_epol_conv = 0;
     is_muckraker_nearby = false;
     boolean is_slanderer_nearby = false;
-    npols = 0;
-    nslans = 0;
     nmuks = 0;
     Team team = rc.getTeam();
     Team enemy = team.opponent();
     MapLocation loc = rc.getLocation();
+    int here = Loc.of(loc);
+    int reinforce_d2 = Model.reinforce == null ? 0 : Loc.dist2(Loc.of(Model.reinforce), here);
     for (RobotInfo i : nearby) {
       if (i.team == enemy) {
         if (i.type == POLITICIAN)
           total_epol_conv += i.conviction;
 
-        if (i.type == MUCKRAKER && (Model.reinforce == null
-            || i.location.isWithinDistanceSquared(loc, Model.reinforce.distanceSquaredTo(rc.getLocation()))))
-          if (Model.addMuck(i.location))
+        if (i.type == MUCKRAKER) {
+          int d2 = Loc.dist2(Loc.of(i.location), here);
+          if ((Model.reinforce == null || d2 <= reinforce_d2) && Model.addMuck(i.location.x, i.location.y)) {
             Model.reinforce = i.location;
+            reinforce_d2 = d2;
+          }
+        }
 
         if (!is_muckraker_nearby && i.type == MUCKRAKER) {
           is_muckraker_nearby = true;
@@ -536,26 +1062,20 @@ public class ECenter {
         if (i.type == SLANDERER)
           is_slanderer_nearby = true;
         // Read the flag; we only care if it's HelloEC, otherwise we'll see it anyway
-        int flag = rc.getFlag(i.ID);
+        int flag = FlagCache.get(i.ID);
         switch (Flag.getType(flag)) {
         case AdoptMe:
-          Flag f = Flag.decode(null, flag);
-          if (f.id == rc.getID()) {
+          if (Flag.id(flag) == rc.getID()) {
             rc.setIndicatorLine(rc.getLocation(), i.location, 128, 128, 0);
-            Model.addFriendlyEC(new ECInfo(f.id));
-            addID(i.ID);
+            Model.addFriendlyEC(new ECInfo(Flag.id(flag)));
+            addUnit(i.ID, i.type, i.influence);
           }
           break;
         default:
           break;
         }
 
-        // Count the number of politicians and slanderers around
-        if (i.type == POLITICIAN)
-          npols++;
-        else if (i.type == SLANDERER)
-          nslans++;
-        else if (i.type == MUCKRAKER)
+        if (i.type == MUCKRAKER)
           nmuks++;
       }
     }
@@ -579,6 +1099,16 @@ public class ECenter {
     spawn();
 
     doBid();
+
+    if (RobotPlayer.DEBUG_STATS && rc.getRoundNum() % RobotPlayer.STATS_INTERVAL == 0)
+      reportStats();
+  }
+
+  static void reportStats() {
+    System.out.println("bootstraps " + bootstraps + ", flags per bootstrap "
+        + (bootstraps == 0 ? "-" : String.valueOf((double) bootstrap_flags / bootstraps)));
+    System.out.println("hot tier read " + hot_polls + " flags, " + hot_hits + " new; cold tier read " + cold_polls
+        + ", " + cold_hits + " new, " + skipped_flags + " unchanged");
   }
 
   static boolean is_near_edge = false;
@@ -8,8 +8,8 @@ import battlecode.common.*;
  * Unlike in the other bot, flags aren't just one message, they also have static components - currently just whether it's a slanderer.
  * That's currently the only component read by robots around them, the rest being read by the EC that spawned the robot.
  *
- * 0 0000 0000 0 00 000000 000000
- * ~ ~~~~      ~ ~~~~~~~~~~~~~~~~--the location, like in the other bot, but relative to this robot's home EC
+ * 0 0000 0000 0 0000000 0000000
+ * ~ ~~~~      ~ ~~~~~~~~~~~~~~--the location, absolute but mod 128, so anyone on the map can decode it
  * | |         |
  * | header    aux flag, like the other bot
  * if it's a slanderer
@@ -22,9 +22,9 @@ import battlecode.common.*;
 public class Flag {
   public boolean aux_flag = false;
   public MapLocation loc = null;
-  public Integer id = null;
+  public int id = Model.NO_ID;
   public Type type;
-  public Integer influence = null;
+  public int influence = Model.NO_INFLUENCE;
   public Symmetry sym = null;
 
   public static Flag neutralEC(MapLocation loc, int influence) {
@@ -74,167 +74,143 @@ public class Flag {
   }
 
   public enum Type {
-    None,
+    None(0, false, false),
     /**
      * We found an enemy EC at a location. If the aux flag isn't set, we're only
      * guessing that there's an enemy EC at this location based on symmetry.
      */
-    EnemyEC,
+    EnemyEC(1, false, true),
     /**
      * We found a neutral EC, and attach its location and influence.
      */
-    NeutralEC,
+    NeutralEC(2, false, true),
     /**
      * We found a new friendly EC, and attach its ID.
      */
-    FriendlyEC,
+    FriendlyEC(3, true, false),
     /**
      * We're registering that an EC has converted from enemy or neutral to friendly,
      * with location.
      */
-    ConvertF,
+    ConvertF(4, false, true),
     /**
      * A message meant to be read by a friendly EC in range, identified by its ID.
      * That EC should take control of this unit.
      */
-    AdoptMe,
+    AdoptMe(5, true, false),
     /**
      * There's a muckraker at a location, and the aux flag tells whether there's a
      * nearby slanderer or not.
      */
-    Muckraker,
+    Muckraker(6, false, true),
     /**
      * The same as Muckraker, but we're copying it from another EC, so further ECs
-     * shouldn't copy it from us.
+     * shouldn't copy it from us. Robots in relay mode also send these to pass on
+     * muckrakers their neighbors saw, see `relayBits()`.
      */
-    Muckraker2,
+    Muckraker2(7, false, true),
     /**
      * We found an edge, and enclose its location and, in the aux flag, whether it's
      * a Y edge.
      */
-    Edge,
+    Edge(8, false, true),
     /**
-     * EC: Sending the X coordinate of our location as an absolute number in the ID
-     * slot.
+     * Half of a message that doesn't fit in one flag, see `encodeFragment()`. ECs
+     * use these for sending their absolute location.
      */
-    MyLocationX,
+    Fragment(9, false, false),
     /**
-     * EC: Sending the Y coordinate of our location as an absolute number in the ID
-     * slot.
+     * EC: a hash of everything we rebroadcast, so units can tell if they already
+     * know it all and skip the rebroadcasts. See `encodeDigest()` and
+     * `Model.digest()`.
      */
-    MyLocationY,
+    Digest(10, false, false),
     /**
      * While we didn't actually see an EC, there are lots of enemies nearby
      * concentrated somewhere around this location.
      */
-    EnemyCenter,
+    EnemyCenter(11, false, true),
     /**
      * We came across a location where we guessed there was an enemy EC, but it's
      * not there. If nonzero, the ID slot is used to indicate which symmetry we know
      * is wrong.
      */
-    WrongSymmetry,
+    WrongSymmetry(12, true, false),
     /**
-     * EC: sending out our income last turn (in the ID slot), so pols can use it to
-     * calculate things.
+     * EC: sending out our income last turn, so pols can use it to calculate
+     * things, and how many rounds it takes us to read all our units' flags, so they
+     * know how long to show each one. The aux flag is set if we're in cleanup mode,
+     * since we think we killed all the enemy ECs. See `encodeIncome()`.
      */
-    Income,
+    Income(13, true, false),
     /**
-     * EC: we're entering cleanup mode, since we think we killed all the enemy ECs.
+     * EC: up to two small facts packed into one flag, so rebroadcasting the map
+     * picture takes fewer turns. See `encodePacked()` for the format.
      */
-    CleanupMode;
+    Packed(14, false, false),
+    /**
+     * Sentinel for a header we don't know about. It's never sent, and decoding it
+     * just means ignoring the flag.
+     */
+    Unknown(15, false, false);
 
+    /**
+     * The header nibble this type is sent with.
+     */
+    public final int header;
+    final boolean has_id;
+    final boolean has_loc;
+
+    Type(int header, boolean has_id, boolean has_loc) {
+      this.header = header;
+      this.has_id = has_id;
+      this.has_loc = has_loc;
+    }
+
+    /**
+     * Never throws; headers we don't know decode to `Unknown`.
+     */
     public static Type decode(int header) {
-      switch (header) {
-      case 0:
-        return None;
-      case 1:
-        return EnemyEC;
-      case 2:
-        return NeutralEC;
-      case 3:
-        return FriendlyEC;
-      case 4:
-        return ConvertF;
-      case 5:
-        return AdoptMe;
-      case 6:
-        return Muckraker;
-      case 7:
-        return Muckraker2;
-      case 8:
-        return Edge;
-      case 9:
-        return MyLocationX;
-      case 10:
-        return MyLocationY;
-      case 11:
-        return EnemyCenter;
-      case 12:
-        return WrongSymmetry;
-      case 13:
-        return Income;
-      case 14:
-        return CleanupMode;
-      default:
-        throw new RuntimeException("Can't decode header " + header);
-      }
+      return TYPES[header & 0b1111];
     }
 
     public int encode() {
-      switch (this) {
-      case None:
-        return 0;
-      case EnemyEC:
-        return 1;
-      case NeutralEC:
-        return 2;
-      case FriendlyEC:
-        return 3;
-      case ConvertF:
-        return 4;
-      case AdoptMe:
-        return 5;
-      case Muckraker:
-        return 6;
-      case Muckraker2:
-        return 7;
-      case Edge:
-        return 8;
-      case MyLocationX:
-        return 9;
-      case MyLocationY:
-        return 10;
-      case EnemyCenter:
-        return 11;
-      case WrongSymmetry:
-        return 12;
-      case Income:
-        return 13;
-      case CleanupMode:
-        return 14;
-      }
-      throw new RuntimeException("That's not possible");
+      return header;
     }
 
     public boolean hasID() {
-      switch (this) {
-      case FriendlyEC:
-      case AdoptMe:
-      case MyLocationX:
-      case MyLocationY:
-      case WrongSymmetry:
-      case Income:
-        return true;
-      default:
-        return false;
-      }
+      return has_id;
+    }
+
+    public boolean hasLoc() {
+      return has_loc;
+    }
+  }
+
+  /**
+   * These are indexed by header nibble, so header dispatch is an array access
+   * instead of walking a switch. Headers we don't know map to `Type.Unknown`.
+   */
+  static final Type[] TYPES = new Type[16];
+  static final boolean[] HAS_ID = new boolean[16];
+  static final boolean[] HAS_LOC = new boolean[16];
+  static {
+    for (int i = 0; i < 16; i++)
+      TYPES[i] = Type.Unknown;
+    for (Type t : Type.values()) {
+      TYPES[t.header] = t;
+      HAS_ID[t.header] = t.has_id;
+      HAS_LOC[t.header] = t.has_loc;
     }
   }
 
   static final int FLAG_SIZE = 24;
   static final int TYPE_BITS = 4;
-  public static final int HEADER_MASK = 0b1111 << (FLAG_SIZE - TYPE_BITS - 1);
+  /**
+   * How many bits are to the right of the header.
+   */
+  static final int HEADER_SHIFT = FLAG_SIZE - TYPE_BITS - 1;
+  public static final int HEADER_MASK = 0b1111 << HEADER_SHIFT;
   static final int ID_MASK = (1 << 15) - 1;
   /**
    * How many we need to shift the aux_flag left, or equivalently how many bits
@@ -254,6 +230,12 @@ public class Flag {
    */
   static final int FLAG_XOR_KEY = 414455;
 
+  /**
+   * `round(exp(0.4x))` for each possible 4-bit muckraker conviction, so decoding
+   * it is an array access instead of a call to `Math.exp()`.
+   */
+  static final int[] MUCK_CONVS = { 1, 1, 2, 3, 5, 7, 11, 16, 25, 37, 55, 81, 122, 181, 270, 403 };
+
   public static boolean isSlanderer(int flag) {
     return (flag >> (FLAG_SIZE - 1)) != 0;
   }
@@ -263,117 +245,460 @@ public class Flag {
   }
 
   public static Type getType(int flag) {
-    return Type.decode((flag >> (FLAG_SIZE - TYPE_BITS - 1)) & 0b1111);
+    return TYPES[(flag >> HEADER_SHIFT) & 0b1111];
   }
 
-  public static Flag decode(MapLocation home_ec, int flag) {
-    // First, decrypt the flag
-    flag ^= FLAG_XOR_KEY;
+  /**
+   * Whether the flag's payload is an ID; see `Type.hasID()`.
+   */
+  public static boolean hasID(int flag) {
+    return HAS_ID[(flag >> HEADER_SHIFT) & 0b1111];
+  }
 
-    // Ignore the slanderer flag here
+  /**
+   * Whether the flag's payload is a location; see `Type.hasLoc()`.
+   */
+  public static boolean hasLoc(int flag) {
+    return HAS_LOC[(flag >> HEADER_SHIFT) & 0b1111];
+  }
 
-    int sig = flag >> (FLAG_SIZE - TYPE_BITS - 1);
-    sig &= 0b1111;
-    Type type = Type.decode(sig);
+  // -- RAW CODEC -- //
+  // These work directly on the (encrypted) 24-bit flag, so reading a flag doesn't
+  // need to allocate a Flag, box the ID or build a MapLocation. Accessors for
+  // fields a type doesn't have return garbage, like reading the wrong union
+  // member in C.
 
-    if (type == Type.None)
-      return new Flag(type);
-    else if (type.hasID()) {
-      int id = flag & ID_MASK;
-      return new Flag(type, id);
-    }
+  /**
+   * The header nibble of the flag. The XOR key doesn't touch the header, so we
+   * don't need to decrypt first.
+   */
+  public static int header(int flag) {
+    return (flag >> HEADER_SHIFT) & 0b1111;
+  }
 
-    // At this point, we know it has a location, so if our reference point is null
-    // we won't be able to decode it
-    if (home_ec == null)
-      return null;
-
-    boolean aux_flag = (flag & (1 << AUX_FLAG_SHIFT)) != 0;
-
-    // Extract the x and y coordinates
-    int y = flag & 0b111111;
-    int x = (flag >> 6) & 0b111111;
-    // Add the signs
-    int sx = flag & (1 << 13);
-    int sy = flag & (1 << 12);
-    if (sx == 0)
-      x = -x;
-    if (sy == 0)
-      y = -y;
-
-    // And switch back to absolute coordinates
-    MapLocation loc = home_ec.translate(x, y);
-
-    if (type == Type.NeutralEC) {
-      int influence = (flag >> AUX_FLAG_SHIFT) & 0b11111;
-      influence *= 25;
-      return neutralEC(loc, influence);
-    } else if (type == Type.Muckraker) {
-      // `e^(0.4inf)`
-      int influence = (flag >> (AUX_FLAG_SHIFT + 1)) & 0b1111;
-      double dinf = Math.exp(0.4 * influence);
-      dinf = Math.round(dinf);
-      influence = (int) dinf;
-      return muckraker(loc, aux_flag, influence);
-    } else if (type == Type.EnemyEC) {
-      int isym = (flag >> (AUX_FLAG_SHIFT + 1)) & 0b11;
-      Symmetry sym = Symmetry.decode(isym);
-      return guessEnemyEC(loc, sym);
-    }
+  public static boolean aux(int flag) {
+    return ((flag ^ FLAG_XOR_KEY) & (1 << AUX_FLAG_SHIFT)) != 0;
+  }
+
+  /**
+   * The contents of the ID slot, for types where `hasID()` is true.
+   */
+  public static int id(int flag) {
+    return (flag ^ FLAG_XOR_KEY) & ID_MASK;
+  }
+
+  /**
+   * The x coordinate of the location. `near_x` can be the x coordinate of any
+   * location on the map, usually our own; see `unpackX()`.
+   */
+  public static int x(int flag, int near_x) {
+    return unpackX(flag ^ FLAG_XOR_KEY, near_x);
+  }
+
+  public static int y(int flag, int near_y) {
+    return unpackY(flag ^ FLAG_XOR_KEY, near_y);
+  }
+
+  /**
+   * Packs a location into the low 14 bits, as `xxxxxxx yyyyyyy`, both mod 128.
+   * That's all anyone needs to decode it without knowing who sent it, see
+   * `unpackX()`.
+   */
+  static int packLoc(int x, int y) {
+    return ((x & 0b1111111) << 7) | (y & 0b1111111);
+  }
+
+  /**
+   * The location bits of a flag, as `packLoc()` made them.
+   */
+  static int locBits(int flag) {
+    return (flag ^ FLAG_XOR_KEY) & ((1 << AUX_FLAG_SHIFT) - 1);
+  }
+
+  /**
+   * The inverse of `packLoc()`. Takes a decrypted flag or anything else with the
+   * location in the low bits. Maps are at most 64 wide, so the location is within
+   * 63 of `near_x` and there's only one coordinate it can be.
+   */
+  static int unpackX(int bits, int near_x) {
+    // Sign-extend the 7-bit difference to get it in -64..63
+    return near_x + (((((bits >> 7) - near_x) & 0b1111111) << 25) >> 25);
+  }
+
+  static int unpackY(int bits, int near_y) {
+    return near_y + ((((bits - near_y) & 0b1111111) << 25) >> 25);
+  }
+
+  /**
+   * The absolute location in the flag, given any location on the map (usually
+   * ours). This does allocate the MapLocation, so use `x()` and `y()` if you only
+   * need to look at it.
+   */
+  public static MapLocation loc(MapLocation near, int flag) {
+    int bits = flag ^ FLAG_XOR_KEY;
+    return new MapLocation(unpackX(bits, near.x), unpackY(bits, near.y));
+  }
+
+  /**
+   * The influence attached to a NeutralEC flag.
+   */
+  public static int neutralInfluence(int flag) {
+    return (((flag ^ FLAG_XOR_KEY) >> AUX_FLAG_SHIFT) & 0b11111) * 25;
+  }
+
+  /**
+   * The conviction attached to a Muckraker flag.
+   */
+  public static int muckConviction(int flag) {
+    return MUCK_CONVS[((flag ^ FLAG_XOR_KEY) >> (AUX_FLAG_SHIFT + 1)) & 0b1111];
+  }
+
+  /**
+   * The symmetry attached to an EnemyEC flag, or null if it isn't a guess.
+   */
+  public static Symmetry symmetry(int flag) {
+    return Symmetry.decode(((flag ^ FLAG_XOR_KEY) >> (AUX_FLAG_SHIFT + 1)) & 0b11);
+  }
+
+  /**
+   * The bits in the aux flag slot for a plain aux flag. All the `*Bits()`
+   * functions produce the `extra` argument to `encodeXY()`.
+   */
+  public static int auxBits(boolean aux_flag) {
+    return aux_flag ? 1 : 0;
+  }
+
+  public static int neutralBits(int influence) {
+    return influence / 25;
+  }
+
+  public static int symmetryBits(Symmetry sym) {
+    return sym == null ? 0 : sym.encode() << 1;
+  }
+
+  public static int muckBits(boolean aux_flag, int conviction) {
+    // The inverse is `ln(inf)/0.4`
+    double dinf = conviction;
+    dinf = Math.log(dinf) / 0.4;
+    // Clamp between 0..15 and round it
+    dinf = Math.max(Math.min(dinf, 15), 0);
+    dinf = Math.round(dinf);
+    return ((int) dinf << 1) | (aux_flag ? 1 : 0);
+  }
+
+  /**
+   * Hop counts only have two bits, so a relay that's gone further than this says
+   * it's taken this many. What stops relays is their age, see `Robot.relay()`.
+   */
+  public static final int MAX_RELAY_HOPS = 3;
+
+  /**
+   * The `extra` for a Muckraker2 a robot relays: the number of hops it's taken in
+   * the low two bits, and the round its muckraker was seen, mod 8, in the three
+   * above that.
+   */
+  public static int relayBits(int hops, int origin_round) {
+    return Math.min(hops, MAX_RELAY_HOPS) | ((origin_round & 0b111) << 2);
+  }
+
+  public static int relayHops(int flag) {
+    return ((flag ^ FLAG_XOR_KEY) >> AUX_FLAG_SHIFT) & 0b11;
+  }
+
+  /**
+   * How many rounds before `round` the muckraker in a relay was seen. That's mod
+   * 8, so it's only right for relays under 8 rounds old, but we drop them long
+   * before that.
+   */
+  public static int relayAge(int flag, int round) {
+    return (round - ((flag ^ FLAG_XOR_KEY) >> (AUX_FLAG_SHIFT + 2))) & 0b111;
+  }
+
+  /**
+   * Sets the slanderer bit on an already encoded flag. The XOR key doesn't touch
+   * it, so there's no need to decrypt first.
+   */
+  public static int withSlanderer(int flag, boolean is_slanderer) {
+    return is_slanderer ? flag | (1 << (FLAG_SIZE - 1)) : flag;
+  }
 
-    return new Flag(type, aux_flag, loc);
+  public static int encodeNone(boolean is_slanderer) {
+    return ((is_slanderer ? 1 : 0) << (FLAG_SIZE - 1)) ^ FLAG_XOR_KEY;
   }
 
-  public int encode(MapLocation home_ec, boolean is_slanderer) {
+  public static int encodeID(Type type, int id, boolean is_slanderer) {
     int flag = (is_slanderer ? 1 : 0) << (FLAG_SIZE - 1);
+    flag |= type.header << HEADER_SHIFT;
+    // It's the last 15 bits, so just OR it
+    flag |= id;
+    return flag ^ FLAG_XOR_KEY;
+  }
 
-    int sig = type.encode();
-    flag |= sig << (FLAG_SIZE - TYPE_BITS - 1);
-
-    if (type == Type.NeutralEC) {
-      flag |= (influence / 25) << AUX_FLAG_SHIFT;
-    } else if (type == Type.EnemyEC && sym != null) {
-      flag |= sym.encode() << (AUX_FLAG_SHIFT + 1);
-    } else {
-      flag |= (aux_flag ? 1 : 0) << AUX_FLAG_SHIFT;
-      if (type == Type.Muckraker && influence != null) {
-        // The inverse is `ln(inf)/0.4`
-        double dinf = influence;
-        dinf = Math.log(dinf) / 0.4;
-        // Clamp between 0..15 and round it
-        dinf = Math.max(Math.min(dinf, 15), 0);
-        dinf = Math.round(dinf);
-        int res = (int) dinf;
-        flag |= res << (AUX_FLAG_SHIFT + 1);
-      }
-    }
+  static final int INCOME_BITS = 11;
+  static final int MAX_POLL_CYCLE = 7;
 
-    if (loc != null) {
-      // Switch to relative coordinates (-63..63)
-      // Then extract the signs so the values are in (0..63)
-      int x = loc.x - home_ec.x;
-      int y = loc.y - home_ec.y;
-      int sx = x < 0 ? 0 : 1;
-      int sy = y < 0 ? 0 : 1;
-      x = Math.abs(x);
-      y = Math.abs(y);
-      // In case the math is wrong
-      if (x > 63 || x < 0 || y > 63 || y < 0)
-        throw new RuntimeException(
-            "Math is wrong! flag = " + loc + ", home = " + home_ec + ", relative = (" + x + ", " + y + ")");
-
-      flag |= sx << 13;
-      flag |= sy << 12;
-      flag |= x << 6;
-      flag |= y;
-    } else if (id != null) {
-      // It's the last 15 bits, so just OR it
-      flag |= id;
-    }
+  /**
+   * The income goes in the low 11 bits of the ID slot and the poll cycle, in
+   * rounds, in the three above that, capped at 7 with 0 meaning we don't know it
+   * yet. Then the aux flag says whether we're in cleanup mode.
+   */
+  public static int encodeIncome(int income, int poll_cycle, boolean cleanup_mode) {
+    income = Math.min(income, (1 << INCOME_BITS) - 1);
+    poll_cycle = Math.min(poll_cycle, MAX_POLL_CYCLE);
+    return encodeID(Type.Income, (auxBits(cleanup_mode) << AUX_FLAG_SHIFT) | (poll_cycle << INCOME_BITS) | income,
+        false);
+  }
+
+  public static int income(int flag) {
+    return (flag ^ FLAG_XOR_KEY) & ((1 << INCOME_BITS) - 1);
+  }
+
+  public static int pollCycle(int flag) {
+    return ((flag ^ FLAG_XOR_KEY) >> INCOME_BITS) & MAX_POLL_CYCLE;
+  }
+
+  /**
+   * Encodes a flag with the location `(x, y)`. `extra` goes in the aux flag slot,
+   * and can be up to 5 bits (see `auxBits()` etc.).
+   */
+  public static int encodeXY(Type type, int extra, int x, int y, boolean is_slanderer) {
+    int flag = (is_slanderer ? 1 : 0) << (FLAG_SIZE - 1);
+    flag |= type.header << HEADER_SHIFT;
+    flag |= extra << AUX_FLAG_SHIFT;
+    flag |= packLoc(x, y);
 
     // And finally, encrypt it
-    flag ^= FLAG_XOR_KEY;
+    return flag ^ FLAG_XOR_KEY;
+  }
 
-    return flag;
+  public static int encodeLoc(Type type, int extra, MapLocation loc, boolean is_slanderer) {
+    return encodeXY(type, extra, loc.x, loc.y, is_slanderer);
+  }
+
+  // -- PACKED FACTS -- //
+  // A Packed flag has two 9-bit fact slots in the ID slot and the two bits above
+  // it:
+  //
+  // 00 000000000 000000000
+  //    ~~~~~~~~~ ~~~~~~~~~--slot 0
+  //    slot 1
+  //
+  // A fact is either an edge, `1 a s cccccc`, where `a` is whether it's a Y edge,
+  // `s` whether it's the max edge, and `c` the coordinate mod 64; or a tagged
+  // value, `0 ttt vvvvv`. A fact of 0 is an empty slot.
+
+  static final int FACT_BITS = 9;
+  static final int FACT_MASK = (1 << FACT_BITS) - 1;
+  static final int FACT_EDGE = 1 << 8;
+  /**
+   * Tag for a symmetry guess, with `Symmetry.encode()` as the value.
+   */
+  public static final int FACT_SYMMETRY = 1;
+
+  public static int edgeFact(boolean is_y, boolean is_max, int coord) {
+    return FACT_EDGE | (is_y ? 1 << 7 : 0) | (is_max ? 1 << 6 : 0) | (coord & 0b111111);
+  }
+
+  public static int tagFact(int tag, int value) {
+    return (tag << 5) | value;
+  }
+
+  public static int encodePacked(int fact0, int fact1) {
+    int flag = Type.Packed.header << HEADER_SHIFT;
+    flag |= fact1 << FACT_BITS;
+    flag |= fact0;
+    return flag ^ FLAG_XOR_KEY;
+  }
+
+  /**
+   * Gets fact number `i` (0 or 1) out of a Packed flag.
+   */
+  public static int fact(int flag, int i) {
+    return ((flag ^ FLAG_XOR_KEY) >> (i * FACT_BITS)) & FACT_MASK;
+  }
+
+  public static boolean isEdgeFact(int fact) {
+    return (fact & FACT_EDGE) != 0;
+  }
+
+  public static boolean edgeIsY(int fact) {
+    return (fact & (1 << 7)) != 0;
+  }
+
+  public static boolean edgeIsMax(int fact) {
+    return (fact & (1 << 6)) != 0;
+  }
+
+  /**
+   * The coordinate of an edge fact, given our own coordinate on that axis. We know
+   * which side of us the edge is on and that it's within 63, so mod 64 is enough.
+   */
+  public static int edgeCoord(int fact, int near) {
+    if (edgeIsMax(fact))
+      return near + ((fact - near) & 0b111111);
+    else
+      return near - ((near - fact) & 0b111111);
+  }
+
+  public static int factTag(int fact) {
+    return fact >> 5;
+  }
+
+  public static int factValue(int fact) {
+    return fact & 0b11111;
+  }
+
+  // -- FRAGMENTS -- //
+  // A Fragment flag carries half of a 30-bit message, in the ID slot and the
+  // bits above it:
+  //
+  // 00 0 0 000000000000000
+  // ~~ ~ ~ ~~~~~~~~~~~~~~~--15 bits of data, low half first
+  // |  | which half
+  // |  sequence bit, flipped for each message so we can tell halves apart
+  // kind of message
+  //
+  // They're put back together by `Reassembly`.
+
+  static final int FRAG_DATA_BITS = 15;
+  static final int FRAG_DATA_MASK = (1 << FRAG_DATA_BITS) - 1;
+  /**
+   * An EC's absolute location, x in the low half and y in the high half.
+   */
+  public static final int FRAG_EC_LOCATION = 0;
+  /**
+   * A neutral EC with its exact influence: the location (see `packLoc()`) in the
+   * low half, and influence in the high half.
+   */
+  public static final int FRAG_NEUTRAL_EC = 1;
+  /**
+   * Not really a Fragment, but a whole message from one EC to the others, sent in
+   * its sync slot (see `ECenter.nextSync()`). The sequence and index bits say
+   * what it is, one of the `SYNC_*` below, and the data is a location (see
+   * `packLoc()`), so `loc()` works on it.
+   */
+  public static final int FRAG_EC_SYNC = 2;
+  /**
+   * We're sending a politician to take the neutral EC at the location, so other
+   * ECs shouldn't.
+   */
+  public static final int SYNC_CLAIM = 0;
+  /**
+   * We've confirmed there's an enemy EC at the location. This isn't an EnemyEC
+   * flag because those are rebroadcasts, which ECs in sync with us would skip.
+   */
+  public static final int SYNC_ENEMY_EC = 1;
+
+  public static int encodeSync(int what, MapLocation loc) {
+    return encodeID(Type.Fragment, (FRAG_EC_SYNC << 17) | (what << FRAG_DATA_BITS) | packLoc(loc.x, loc.y), false);
+  }
+
+  public static int syncKind(int flag) {
+    return ((flag ^ FLAG_XOR_KEY) >> FRAG_DATA_BITS) & 0b11;
+  }
+
+  /**
+   * Returns the payload of a Fragment flag without encrypting it, which is what
+   * goes in the ID slot of a Flag object; `encodeFragment()` is the full flag.
+   */
+  static int fragPayload(int kind, int seq, int index, int data) {
+    return (kind << 17) | (seq << 16) | (index << FRAG_DATA_BITS) | data;
+  }
+
+  public static int encodeFragment(int kind, int seq, int index, int data, boolean is_slanderer) {
+    return encodeID(Type.Fragment, fragPayload(kind, seq, index, data), is_slanderer);
+  }
+
+  /**
+   * Makes both Fragment flags for a message, to be queued in order.
+   */
+  public static Flag[] fragments(int kind, int seq, int message) {
+    return new Flag[] { new Flag(Type.Fragment, fragPayload(kind, seq, 0, message & FRAG_DATA_MASK)),
+        new Flag(Type.Fragment, fragPayload(kind, seq, 1, message >> FRAG_DATA_BITS)) };
+  }
+
+  public static int fragKind(int flag) {
+    return ((flag ^ FLAG_XOR_KEY) >> 17) & 0b11;
+  }
+
+  public static int fragSeq(int flag) {
+    return ((flag ^ FLAG_XOR_KEY) >> 16) & 1;
+  }
+
+  public static int fragIndex(int flag) {
+    return ((flag ^ FLAG_XOR_KEY) >> FRAG_DATA_BITS) & 1;
+  }
+
+  public static int fragData(int flag) {
+    return (flag ^ FLAG_XOR_KEY) & FRAG_DATA_MASK;
+  }
+
+  // -- DIGESTS -- //
+  // A Digest flag uses every bit below the header for `Model.digest()`.
+
+  static final int DIGEST_BITS = HEADER_SHIFT;
+  static final int DIGEST_MASK = (1 << DIGEST_BITS) - 1;
+  /**
+   * The headers of the flags ECs keep rebroadcasting, which units that are in
+   * sync with the EC's digest don't need to read.
+   */
+  static final int REBROADCAST_HEADERS = (1 << Type.FriendlyEC.header) | (1 << Type.NeutralEC.header)
+      | (1 << Type.EnemyEC.header) | (1 << Type.Packed.header);
+
+  public static int encodeDigest(int digest) {
+    return ((Type.Digest.header << HEADER_SHIFT) | (digest & DIGEST_MASK)) ^ FLAG_XOR_KEY;
+  }
+
+  public static int digest(int flag) {
+    return (flag ^ FLAG_XOR_KEY) & DIGEST_MASK;
+  }
+
+  public static boolean isRebroadcast(int flag) {
+    return ((REBROADCAST_HEADERS >> header(flag)) & 1) != 0;
+  }
+
+  // -- OBJECT API -- //
+  // This is built on the raw codec, and is still fine for code that isn't hot.
+
+  /**
+   * `near` is any location on the map, usually ours; see `loc()`.
+   */
+  public static Flag decode(MapLocation near, int flag) {
+    // Ignore the slanderer flag here
+    Type type = getType(flag);
+
+    if (type.has_id)
+      return new Flag(type, id(flag));
+    else if (!type.has_loc)
+      return new Flag(type);
+
+    MapLocation loc = loc(near, flag);
+    if (type == Type.NeutralEC)
+      return neutralEC(loc, neutralInfluence(flag));
+    else if (type == Type.Muckraker)
+      return muckraker(loc, aux(flag), muckConviction(flag));
+    else if (type == Type.EnemyEC)
+      return guessEnemyEC(loc, symmetry(flag));
+
+    return new Flag(type, aux(flag), loc);
+  }
+
+  public int encode(boolean is_slanderer) {
+    if (loc == null) {
+      int payload = auxBits(aux_flag) << AUX_FLAG_SHIFT;
+      payload |= id;
+      return encodeID(type, payload, is_slanderer);
+    }
+
+    int extra;
+    if (type == Type.NeutralEC)
+      extra = neutralBits(influence);
+    else if (type == Type.EnemyEC && sym != null)
+      extra = symmetryBits(sym);
+    else if (type == Type.Muckraker && influence != Model.NO_INFLUENCE)
+      extra = muckBits(aux_flag, influence);
+    else
+      extra = auxBits(aux_flag);
+    return encodeLoc(type, extra, loc, is_slanderer);
   }
 }
@@ -0,0 +1,71 @@
+package starfleet;
+
+import battlecode.common.*;
+
+/**
+ * A memo of `rc.getFlag()` results for the current round, shared by Model,
+ * Robot and ECenter, so reading the same unit's flag twice in a turn only asks
+ * the engine once. Entries are stamped with the round they were read in, so
+ * they go stale on their own when the round changes, including when we go
+ * overtime in the middle of a turn.
+ *
+ * It's direct-mapped by ID: if two IDs share a slot, the newer one wins and the
+ * older one is just read again next time.
+ */
+public class FlagCache {
+  /**
+   * What `get()` returns when the unit is dead or we can't read its flag. Real
+   * flags are 24 bits, so they're never negative.
+   */
+  static final int DEAD = -1;
+
+  static RobotController rc;
+  static int mask;
+  static int[] ids;
+  static int[] flags;
+  static int[] rounds;
+
+  public static void init(RobotController rc) {
+    FlagCache.rc = rc;
+    // ECs read their whole roster, robots only their neighbors and home EC, and
+    // allocating an array costs bytecode equal to its length
+    int size = rc.getType() == RobotType.ENLIGHTENMENT_CENTER ? 1024 : 128;
+    mask = size - 1;
+    ids = new int[size];
+    flags = new int[size];
+    rounds = new int[size];
+  }
+
+  /**
+   * Returns the flag of the unit `id`, or `DEAD`.
+   */
+  static int get(int id) {
+    int round = rc.getRoundNum();
+    int slot = id & mask;
+    if (ids[slot] == id && rounds[slot] == round)
+      return flags[slot];
+
+    int flag = read(id);
+    ids[slot] = id;
+    flags[slot] = flag;
+    rounds[slot] = round;
+    return flag;
+  }
+
+  /**
+   * Reads the flag of the unit `id` without going through the memo, returning
+   * `DEAD` if it's dead. We check `canGetFlag()` first because units die all the
+   * time, and having `getFlag()` build and throw an exception is a very expensive
+   * way to find that out. The catch is only there because `getFlag()` declares
+   * it.
+   */
+  static int read(int id) {
+    if (!rc.canGetFlag(id))
+      return DEAD;
+    try {
+      return rc.getFlag(id);
+    } catch (GameActionException e) {
+      return DEAD;
+    }
+  }
+}
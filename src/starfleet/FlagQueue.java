@@ -0,0 +1,162 @@
+package starfleet;
+
+/**
+ * The flags a robot still needs to send. It's bounded, and it coalesces messages
+ * about the same thing (the same type, and the same location or ID; see
+ * `KEY_MASKS`), keeping the newest one. The highest priority message goes first,
+ * the oldest first within a priority, and messages that wait longer than their
+ * type's TTL are dropped.
+ *
+ * Messages are stored as encoded flags without the slanderer bit (see
+ * `Flag.withSlanderer()`), in arrays we allocate once, so using it doesn't
+ * allocate anything.
+ */
+public class FlagQueue {
+  static final int CAPACITY = 16;
+
+  /**
+   * These are indexed by header, like `Flag.TYPES`. Higher priority goes first.
+   */
+  static final int[] PRIORITIES = new int[16];
+  /**
+   * How many rounds a message can wait before we give up on it.
+   */
+  static final int[] TTLS = new int[16];
+  /**
+   * Which bits below the header say what the message is about. Two messages with
+   * the same header and the same key bits are the same message, so the newer one
+   * replaces the older one.
+   */
+  static final int[] KEY_MASKS = new int[16];
+
+  static void setType(Flag.Type type, int priority, int ttl, int key_mask) {
+    PRIORITIES[type.header] = priority;
+    TTLS[type.header] = ttl;
+    KEY_MASKS[type.header] = key_mask;
+  }
+
+  static {
+    int payload = (1 << Flag.HEADER_SHIFT) - 1;
+    int loc = (1 << Flag.AUX_FLAG_SHIFT) - 1;
+    for (int i = 0; i < 16; i++) {
+      PRIORITIES[i] = 1;
+      TTLS[i] = 20;
+      KEY_MASKS[i] = payload;
+    }
+    // ECs changing hands matter the most
+    setType(Flag.Type.ConvertF, 4, 50, loc);
+    setType(Flag.Type.EnemyEC, 4, 100, loc);
+    setType(Flag.Type.NeutralEC, 3, 100, loc);
+    setType(Flag.Type.WrongSymmetry, 3, 50, payload);
+    setType(Flag.Type.FriendlyEC, 2, 100, payload);
+    setType(Flag.Type.Edge, 2, 100, payload);
+    // Relayed muckrakers are only useful right away (see `Robot.relay()`), but
+    // they're second-hand, so they don't push out what we found ourselves
+    setType(Flag.Type.Muckraker2, 1, 2, loc);
+    // Only the latest one of these is worth sending
+    setType(Flag.Type.EnemyCenter, 1, 5, 0);
+    // This goes last, so our old EC hears everything else before we leave it
+    setType(Flag.Type.AdoptMe, 0, 10, 0);
+  }
+
+  int[] flags = new int[CAPACITY];
+  int[] extras = new int[CAPACITY];
+  int[] deadlines = new int[CAPACITY];
+  int[] seqs = new int[CAPACITY];
+  int size = 0;
+  int next_seq = 0;
+  /**
+   * The `extra` of the last flag `poll()` returned.
+   */
+  int extra = 0;
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  boolean add(int flag, int round) {
+    return add(flag, 0, round);
+  }
+
+  /**
+   * Adds an encoded flag, with an `extra` int that goes along with it but isn't
+   * sent. Returns false if we dropped it because the queue is full of more
+   * important messages.
+   */
+  boolean add(int flag, int extra, int round) {
+    int header = Flag.header(flag);
+    int mask = Flag.HEADER_MASK | KEY_MASKS[header];
+    int key = flag & mask;
+    int deadline = round + TTLS[header];
+
+    // The XOR key is the same for every flag, so we can compare keys encrypted
+    for (int i = 0; i < size; i++) {
+      if ((flags[i] & mask) == key) {
+        flags[i] = flag;
+        extras[i] = extra;
+        deadlines[i] = deadline;
+        return true;
+      }
+    }
+
+    int slot = size;
+    if (size == CAPACITY) {
+      // Replace the least important message, if it's not more important than this
+      int priority = PRIORITIES[header];
+      slot = -1;
+      for (int i = 0; i < size; i++) {
+        int p = PRIORITIES[Flag.header(flags[i])];
+        if (p <= priority && (slot == -1 || p < PRIORITIES[Flag.header(flags[slot])]
+            || (p == PRIORITIES[Flag.header(flags[slot])] && seqs[i] < seqs[slot])))
+          slot = i;
+      }
+      if (slot == -1)
+        return false;
+    } else {
+      size++;
+    }
+    flags[slot] = flag;
+    extras[slot] = extra;
+    deadlines[slot] = deadline;
+    seqs[slot] = next_seq++;
+    return true;
+  }
+
+  /**
+   * Removes and returns the next flag to send, or -1 if there's nothing left.
+   */
+  int poll(int round) {
+    int best = -1;
+    int best_priority = -1;
+    for (int i = 0; i < size; i++) {
+      if (deadlines[i] < round) {
+        remove(i);
+        i--;
+        continue;
+      }
+      int p = PRIORITIES[Flag.header(flags[i])];
+      if (p > best_priority || (p == best_priority && seqs[i] < seqs[best])) {
+        best = i;
+        best_priority = p;
+      }
+    }
+    if (best == -1)
+      return -1;
+
+    int flag = flags[best];
+    extra = extras[best];
+    remove(best);
+    return flag;
+  }
+
+  /**
+   * Order is kept in `seqs`, so we can just move the last one into the hole.
+   */
+  void remove(int i) {
+    size--;
+    flags[i] = flags[size];
+    extras[i] = extras[size];
+    deadlines[i] = deadlines[size];
+    seqs[i] = seqs[size];
+  }
+}
@@ -0,0 +1,115 @@
+package starfleet;
+
+/**
+ * A hash map from positive ints (robot IDs) to non-negative ints, with open
+ * addressing, linear probing, and moving entries back on removal instead of
+ * leaving tombstones. Nothing allocates except growing.
+ */
+public class IntMap {
+  int[] keys;
+  int[] vals;
+  int mask;
+  int size = 0;
+
+  /**
+   * `capacity` must be a power of two. The map grows when it gets half full.
+   */
+  public IntMap(int capacity) {
+    keys = new int[capacity];
+    vals = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value for `key`, or -1 if it isn't there.
+   */
+  public int get(int key) {
+    int[] keys = this.keys;
+    int i = key & mask;
+    int k;
+    while ((k = keys[i]) != 0) {
+      if (k == key)
+        return vals[i];
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Sets the value for `key`, returning the old one or -1 if it's new.
+   */
+  public int put(int key, int val) {
+    int[] keys = this.keys;
+    int i = key & mask;
+    int k;
+    while ((k = keys[i]) != 0) {
+      if (k == key) {
+        int old = vals[i];
+        vals[i] = val;
+        return old;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    vals[i] = val;
+    size++;
+    if (size * 2 > keys.length)
+      grow();
+    return -1;
+  }
+
+  /**
+   * Returns the value that was removed, or -1 if it wasn't there.
+   */
+  public int remove(int key) {
+    int[] keys = this.keys;
+    int[] vals = this.vals;
+    int mask = this.mask;
+    int i = key & mask;
+    int k;
+    while ((k = keys[i]) != key) {
+      if (k == 0)
+        return -1;
+      i = (i + 1) & mask;
+    }
+    int old = vals[i];
+
+    // Instead of leaving a tombstone, move back any later keys in the same run
+    // that would otherwise be cut off from their home slot by the hole at `i`
+    int j = i;
+    while ((k = keys[j = (j + 1) & mask]) != 0) {
+      int home = k & mask;
+      // It can stay if its home is cyclically in (i, j]
+      if (i <= j ? (i < home && home <= j) : (i < home || home <= j))
+        continue;
+      keys[i] = k;
+      vals[i] = vals[j];
+      i = j;
+    }
+    keys[i] = 0;
+    size--;
+    return old;
+  }
+
+  void grow() {
+    int[] old_keys = keys;
+    int[] old_vals = vals;
+    keys = new int[old_keys.length * 2];
+    vals = new int[old_keys.length * 2];
+    mask = keys.length - 1;
+    for (int j = 0; j < old_keys.length; j++) {
+      int key = old_keys[j];
+      if (key != 0) {
+        int i = key & mask;
+        while (keys[i] != 0)
+          i = (i + 1) & mask;
+        keys[i] = key;
+        vals[i] = old_vals[j];
+      }
+    }
+  }
+}
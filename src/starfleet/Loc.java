@@ -0,0 +1,39 @@
+package starfleet;
+
+import battlecode.common.*;
+
+/**
+ * Locations packed into an int, x in the high 16 bits and y in the low 16, so
+ * hot loops can store and compare them without allocating MapLocations or
+ * making virtual calls.
+ *
+ * Coordinates are at most 30064, so packed locations are positive and two of
+ * them are equal exactly when the locations are. No location packs to 0, so
+ * that's `NONE`. (For sending locations in flags, see `Flag.packLoc()`, which
+ * is 14 bits but relative.)
+ */
+public class Loc {
+  static final int NONE = 0;
+
+  static int pack(int x, int y) {
+    return (x << 16) | y;
+  }
+
+  static int of(MapLocation loc) {
+    return loc == null ? NONE : (loc.x << 16) | loc.y;
+  }
+
+  static int dist2(int a, int b) {
+    int dx = (a >>> 16) - (b >>> 16);
+    int dy = (a & 0xFFFF) - (b & 0xFFFF);
+    return dx * dx + dy * dy;
+  }
+
+  /**
+   * Coordinates stay well away from 0 and 65535, so adding to the y half never
+   * carries into x.
+   */
+  static int add(int loc, Direction dir) {
+    return loc + (dir.dx << 16) + dir.dy;
+  }
+}
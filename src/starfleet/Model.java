@@ -1,15 +1,29 @@
 package starfleet;
 
-import java.util.ArrayList;
 import battlecode.common.*;
 
 class ECInfo {
   MapLocation loc;
-  Integer influence;
-  Integer id;
-  int pendingX, pendingY;
+  int influence = Model.NO_INFLUENCE;
+  int id = Model.NO_ID;
   Symmetry guessed = null;
   boolean attacked = false;
+  /**
+   * One of the `ECRegistry` statuses, and where it is in the registry.
+   */
+  int status = ECRegistry.NONE;
+  int index = -1;
+  /**
+   * The last digest this EC sent, or -1 if we haven't seen one. See
+   * `Model.digest()`.
+   */
+  int digest = -1;
+  /**
+   * Which symmetries this EC counts as evidence for, and whether it's waiting
+   * for `SymmetryTracker` to look at it.
+   */
+  int evidence = 0;
+  boolean changed = false;
 
   public static ECInfo guess(MapLocation loc, Symmetry sym) {
     ECInfo i = new ECInfo(loc);
@@ -33,7 +47,7 @@ class ECInfo {
   public boolean equals(Object o) {
     if (o instanceof ECInfo) {
       ECInfo ec = (ECInfo) o;
-      return (id != null && this.id.equals(ec.id)) || (loc != null && this.loc.equals(ec.loc));
+      return (id != Model.NO_ID && id == ec.id) || (loc != null && this.loc.equals(ec.loc));
     } else {
       return false;
     }
@@ -48,15 +62,15 @@ enum Symmetry {
       return null;
     switch (this) {
     case Horizontal:
-      if (Model.minX != null && Model.maxX != null)
+      if ((Model.edges & Model.EDGES_X) == Model.EDGES_X)
         return new MapLocation(Model.maxX + (Model.minX - loc.x), loc.y);
       break;
     case Vertical:
-      if (Model.minY != null && Model.maxY != null)
+      if ((Model.edges & Model.EDGES_Y) == Model.EDGES_Y)
         return new MapLocation(loc.x, Model.maxY + (Model.minY - loc.y));
       break;
     case Rotational:
-      if (Model.minX != null && Model.maxX != null && Model.minY != null && Model.maxY != null)
+      if (Model.edges == Model.EDGES_ALL)
         return new MapLocation(Model.maxX + (Model.minX - loc.x), Model.maxY + (Model.minY - loc.y));
       break;
     }
@@ -96,17 +110,34 @@ enum Symmetry {
  */
 public class Model {
   public static RobotController rc;
-  public static Integer minX = null;
-  public static Integer minY = null;
-  public static Integer maxX = null;
-  public static Integer maxY = null;
-  public static ArrayList<ECInfo> friendly_ecs = new ArrayList<>(8);
-  public static ArrayList<ECInfo> neutral_ecs = new ArrayList<>(8);
-  public static ArrayList<ECInfo> enemy_ecs = new ArrayList<>(8);
-
-  static boolean maybe_horiz = true;
-  static boolean maybe_vert = true;
-  static boolean maybe_rot = true;
+  /**
+   * The edges of the map. `edges` has an `EDGE_*` bit for each one we've found,
+   * and a coordinate means nothing until its bit is set.
+   */
+  static final int EDGE_MIN_X = 1;
+  static final int EDGE_MAX_X = 2;
+  static final int EDGE_MIN_Y = 4;
+  static final int EDGE_MAX_Y = 8;
+  static final int EDGES_X = EDGE_MIN_X | EDGE_MAX_X;
+  static final int EDGES_Y = EDGE_MIN_Y | EDGE_MAX_Y;
+  static final int EDGES_ALL = EDGES_X | EDGES_Y;
+  public static int edges = 0;
+  public static int minX;
+  public static int minY;
+  public static int maxX;
+  public static int maxY;
+  /**
+   * Robot IDs are always positive, and influence is never negative, so these
+   * mean we don't know it.
+   */
+  static final int NO_ID = 0;
+  static final int NO_INFLUENCE = -1;
+  /**
+   * Every EC we know about, see `ECRegistry`.
+   */
+  public static ECRegistry ecs = new ECRegistry();
+
+  static SymmetryTracker symmetry = new SymmetryTracker(ecs);
   static Symmetry guessed = null;
 
   static MapLocation last_converted = null;
@@ -115,151 +146,252 @@ public class Model {
   static boolean rpriority = false;
   static int wrong_sym_turn = 0;
   static Symmetry unreported_wrong = null;
-  static Integer home_ec_id = null;
+  static int home_ec_id = NO_ID;
   static int home_ec_income = 1;
+  /**
+   * How many rounds our home EC takes to read all its units' flags, or 0 if we
+   * don't know.
+   */
+  static int home_ec_poll_cycle = 0;
   static boolean home_ec_died = false;
+  /**
+   * How many rounds after we spawned we got our home EC's income, which ends the
+   * bootstrap it sends new units (see `ECenter.nextBootstrap()`), or -1 if we
+   * haven't yet. Only kept with `RobotPlayer.DEBUG_STATS` on.
+   */
+  static int spawn_round = 0;
+  static int bootstrap_rounds = -1;
+  /**
+   * Puts together multi-flag messages from friendly ECs.
+   */
+  static Reassembly ec_fragments = new Reassembly();
+
+  /**
+   * Handles the friendly EC `ec` dying, which `FlagCache` told us. It now belongs
+   * to the enemy.
+   */
+  static void ecDied(ECInfo ec) {
+    if (ec.id == home_ec_id)
+      home_ec_died = true;
+    if (ec.loc != null) {
+      ecs.setID(ec, NO_ID);
+      ecs.setStatus(ec, ECRegistry.ENEMY);
+    } else {
+      ecs.remove(ec);
+    }
+  }
+
+  /**
+   * Handles a message another EC sent us in its sync slot.
+   */
+  static void processSync(int flag, MapLocation here) {
+    switch (Flag.syncKind(flag)) {
+    case Flag.SYNC_CLAIM: {
+      ECInfo ec = ecs.at(Flag.loc(here, flag));
+      if (ec != null && ec.status == ECRegistry.NEUTRAL)
+        ec.attacked = true;
+      break;
+    }
+    case Flag.SYNC_ENEMY_EC:
+      addEnemyEC(new ECInfo(Flag.loc(here, flag)));
+      break;
+    }
+  }
 
   static void updateECFlags() {
-    for (int i = 0; i < Model.friendly_ecs.size(); i++) {
-      ECInfo ec = Model.friendly_ecs.get(i);
-      try {
-        int flag = rc.getFlag(ec.id);
-        if ((flag & Flag.HEADER_MASK) != 0) {
-          Flag f = Flag.decode(ec.loc, flag);
-          // f will be null if we needed the location of the EC but haven't got it yet
-          if (f != null) {
-
-            switch (f.type) {
-            case FriendlyEC:
-              addFriendlyEC(new ECInfo(f.id));
-              break;
-            case NeutralEC:
-              addNeutralEC(new ECInfo(f.loc, f.influence));
-              break;
-            // If it's only a guess, and we're an EC, we'll make our own guesses
-            case EnemyEC:
-              if (rc.getType() != RobotType.ENLIGHTENMENT_CENTER || f.sym == null) {
-                ECInfo ecif = new ECInfo(f.loc);
-                ecif.guessed = f.sym;
-                friendly_ecs.remove(ecif);
-                neutral_ecs.remove(ecif);
-                addEnemyEC(ecif);
-              }
-              break;
-            case ConvertF: {
-              ECInfo ecif = new ECInfo(f.loc);
-              if (enemy_ecs.remove(ecif) || neutral_ecs.remove(ecif))
-                last_converted = f.loc;
-              break;
-            }
-            case Edge:
-              Model.setEdge(f.aux_flag, f.loc, ec.loc);
-              break;
-            case MyLocationX:
-              if (ec.loc != null)
-                break;
-              ec.pendingX = f.id;
-              if (ec.pendingY != 0) {
-                ec.loc = new MapLocation(ec.pendingX, ec.pendingY);
-                Model.guessEC(ec.loc);
-                if (enemy_ecs.remove(ec) || neutral_ecs.remove(ec))
-                  last_converted = ec.loc;
-                rc.setIndicatorLine(rc.getLocation(), ec.loc, 255, 255, 255);
-              }
-              break;
-            case MyLocationY:
-              if (ec.loc != null)
-                break;
-              ec.pendingY = f.id;
-              if (ec.pendingX != 0) {
-                ec.loc = new MapLocation(ec.pendingX, ec.pendingY);
-                Model.guessEC(ec.loc);
-                if (Model.enemy_ecs.remove(ec) || Model.neutral_ecs.remove(ec))
-                  last_converted = ec.loc;
-                rc.setIndicatorLine(rc.getLocation(), ec.loc, 255, 255, 255);
-              }
-              break;
-            case Muckraker2:
-              if (rc.getType() == RobotType.ENLIGHTENMENT_CENTER)
-                break;
-            case Muckraker:
-              if (reinforce2 == null
-                  || f.loc.isWithinDistanceSquared(rc.getLocation(), reinforce2.distanceSquaredTo(rc.getLocation())))
-                if (addMuck(f.loc)) {
-                  reinforce2 = f.loc;
-                  if (!rpriority)
-                    rpriority = f.aux_flag;
-                }
-              break;
-
-            case WrongSymmetry:
-              Symmetry sym = Symmetry.decode(f.id);
-              if (sym != null) {
-                wrongSymmetry(sym, true);
-                if (sym == guessed) {
-                  wrong_sym_turn = rc.getRoundNum();
-                  unreported_wrong = sym;
-                }
-              } else {
-                System.err.println("WrongSymmetry with null!");
-              }
-              break;
-
-            case CleanupMode:
-              if (enemy_ecs.isEmpty())
-                cleanup_mode = true;
-              break;
-
-            case Income:
-              if (home_ec_id == ec.id) {
-                home_ec_income = f.id;
-              }
-              break;
-
-            case EnemyCenter:
-            case AdoptMe:
-            case None:
-              break;
-            }
+    // Only calculated if we need it
+    int my_digest = -1;
+    // Flag locations are decoded relative to us
+    MapLocation here = rc.getLocation();
+    for (int i = ecs.next(ECRegistry.FRIENDLY, 0); i != -1; i = ecs.next(ECRegistry.FRIENDLY, i + 1)) {
+      ECInfo ec = ecs.get(i);
+      int flag = FlagCache.get(ec.id);
+      if (flag == FlagCache.DEAD) {
+        ecDied(ec);
+        continue;
+      }
+      if ((flag & Flag.HEADER_MASK) == 0)
+        continue;
+      // If we know everything this EC does, its rebroadcasts won't tell us anything
+      if (Flag.isRebroadcast(flag)) {
+        if (my_digest == -1)
+          my_digest = digest();
+        if (ec.digest == my_digest)
+          continue;
+      }
 
-          }
+      switch (Flag.getType(flag)) {
+      case FriendlyEC:
+        addFriendlyEC(new ECInfo(Flag.id(flag)));
+        break;
+      case NeutralEC:
+        addNeutralEC(new ECInfo(Flag.loc(here, flag), Flag.neutralInfluence(flag)));
+        break;
+      // If it's only a guess, and we're an EC, we'll make our own guesses
+      case EnemyEC: {
+        Symmetry sym = Flag.symmetry(flag);
+        if (rc.getType() != RobotType.ENLIGHTENMENT_CENTER || sym == null) {
+          ECInfo ecif = new ECInfo(Flag.loc(here, flag));
+          ecif.guessed = sym;
+          addEnemyEC(ecif);
+        }
+        break;
+      }
+      case ConvertF: {
+        MapLocation loc = Flag.loc(here, flag);
+        ECInfo ecif = new ECInfo(loc);
+        if (ecs.remove(ECRegistry.ENEMY, ecif) || ecs.remove(ECRegistry.NEUTRAL, ecif))
+          last_converted = loc;
+        break;
+      }
+      case Edge:
+        Model.setEdge(Flag.aux(flag), Flag.loc(here, flag), here);
+        break;
+      case Fragment: {
+        if (Flag.fragKind(flag) == Flag.FRAG_EC_SYNC) {
+          if (rc.getType() == RobotType.ENLIGHTENMENT_CENTER)
+            processSync(flag, here);
+          break;
         }
-      } catch (GameActionException e) {
-        // The EC is dead, so remove it
-        Model.friendly_ecs.remove(i);
-        // If it's dead, it now belongs to the enemy
-        if (ec.loc != null) {
-          ec.id = null;
-          Model.enemy_ecs.add(ec);
+        int message = ec_fragments.add(ec.id, flag, rc.getRoundNum());
+        if (message == -1 || Flag.fragKind(flag) != Flag.FRAG_EC_LOCATION || ec.loc != null)
+          break;
+        MapLocation loc = new MapLocation(message & Flag.FRAG_DATA_MASK, message >> Flag.FRAG_DATA_BITS);
+        // It was probably an enemy or neutral EC we knew about
+        ECInfo old = ecs.at(loc);
+        if (old != null) {
+          if (old.status == ECRegistry.ENEMY || old.status == ECRegistry.NEUTRAL)
+            last_converted = loc;
+          ecs.remove(old);
+        }
+        ecs.setLoc(ec, loc);
+        Model.guessEC(ec.loc);
+        rc.setIndicatorLine(rc.getLocation(), ec.loc, 255, 255, 255);
+        break;
+      }
+      case Muckraker2:
+        if (rc.getType() == RobotType.ENLIGHTENMENT_CENTER)
+          break;
+      case Muckraker: {
+        // Only make a MapLocation if it's the new reinforce2
+        int x = Flag.x(flag, here.x);
+        int y = Flag.y(flag, here.y);
+        int h = Loc.of(here);
+        if (reinforce2 == null || Loc.dist2(Loc.pack(x, y), h) <= Loc.dist2(Loc.of(reinforce2), h))
+          if (addMuck(x, y)) {
+            reinforce2 = new MapLocation(x, y);
+            if (!rpriority)
+              rpriority = Flag.aux(flag);
+          }
+        break;
+      }
+
+      case WrongSymmetry:
+        Symmetry sym = Symmetry.decode(Flag.id(flag));
+        if (sym != null) {
+          wrongSymmetry(sym, true);
+          if (sym == guessed) {
+            wrong_sym_turn = rc.getRoundNum();
+            unreported_wrong = sym;
+          }
+        } else {
+          System.err.println("WrongSymmetry with null!");
         }
+        break;
+
+      case Income:
         if (ec.id == home_ec_id) {
-          home_ec_died = true;
+          home_ec_income = Flag.income(flag);
+          home_ec_poll_cycle = Flag.pollCycle(flag);
+          if (RobotPlayer.DEBUG_STATS && bootstrap_rounds == -1)
+            bootstrap_rounds = rc.getRoundNum() - spawn_round;
         }
-        // Don't go past the end of the list
-        i--;
+        if (Flag.aux(flag) && ecs.count(ECRegistry.ENEMY) == 0)
+          cleanup_mode = true;
+        break;
+
+      case Packed:
+        processFact(Flag.fact(flag, 0), here);
+        processFact(Flag.fact(flag, 1), here);
+        break;
+
+      case Digest:
+        ec.digest = Flag.digest(flag);
+        break;
+
+      case EnemyCenter:
+      case AdoptMe:
+      case None:
+      case Unknown:
+        break;
       }
     }
   }
 
-  public static void wrongSymmetry(Symmetry sym, boolean reguess) {
-    if (sym == null)
-      sym = guessed;
-    if (sym != null)
-      switch (sym) {
-      case Horizontal:
-        maybe_horiz = false;
+  /**
+   * A hash of the things ECs rebroadcast: friendly EC IDs, neutral and confirmed
+   * enemy EC locations, edges and our symmetry guess. It only depends on what we
+   * know, not what order we learned it in, so if a unit's digest matches its EC's
+   * it has nothing to learn from the rebroadcasts. ECs count themselves as a
+   * friendly EC, so it comes out the same as for their units.
+   */
+  static int digest() {
+    int ids = rc.getType() == RobotType.ENLIGHTENMENT_CENTER ? rc.getID() : 0;
+    int neutrals = 0;
+    int enemies = 0;
+    for (int k = 0; k < ecs.size(); k++) {
+      ECInfo i = ecs.get(k);
+      switch (i.status) {
+      case ECRegistry.FRIENDLY:
+        // Adds nothing if it's NO_ID
+        ids += i.id;
         break;
-      case Vertical:
-        maybe_vert = false;
+      case ECRegistry.NEUTRAL:
+        if (i.loc != null)
+          neutrals += (i.loc.x << 7) ^ i.loc.y;
         break;
-      case Rotational:
-        maybe_rot = false;
+      case ECRegistry.ENEMY:
+        if (i.guessed == null && i.loc != null)
+          enemies += (i.loc.x << 7) ^ i.loc.y;
         break;
       }
+    }
+    int h = (ids * 31 + neutrals) * 31 + enemies;
+    h = (h << 2) | (guessed == null ? 0 : guessed.encode());
+    h = (h << 4) | edges;
+    return h & Flag.DIGEST_MASK;
+  }
+
+  /**
+   * Processes one fact out of a Packed flag from a friendly EC, where `here` is
+   * our location.
+   */
+  static void processFact(int fact, MapLocation here) {
+    if (Flag.isEdgeFact(fact)) {
+      boolean is_y = Flag.edgeIsY(fact);
+      setEdge(is_y, Flag.edgeIsMax(fact), Flag.edgeCoord(fact, is_y ? here.y : here.x));
+    } else if (Flag.factTag(fact) == Flag.FACT_SYMMETRY) {
+      // If we're an EC, we'll make our own guesses
+      Symmetry sym = Symmetry.decode(Flag.factValue(fact));
+      if (guessed == null && sym != null && rc.getType() != RobotType.ENLIGHTENMENT_CENTER && isPossible(sym))
+        setSymmetry(sym);
+    }
+  }
+
+  static boolean isPossible(Symmetry sym) {
+    return symmetry.isPossible(sym);
+  }
+
+  public static void wrongSymmetry(Symmetry sym, boolean reguess) {
+    if (sym == null)
+      sym = guessed;
+    if (sym != null)
+      symmetry.ruleOut(sym);
     if (sym != null && (guessed == null || guessed == sym)) {
       // Remove and reguess
-      final Symmetry sym2 = sym;
-      enemy_ecs.removeIf(x -> x.guessed == sym2);
+      for (int i = ecs.next(ECRegistry.ENEMY, 0); i != -1; i = ecs.next(ECRegistry.ENEMY, i + 1))
+        if (ecs.get(i).guessed == sym)
+          ecs.remove(ecs.get(i));
       if (reguess)
         guessSymmetry();
     }
@@ -276,44 +408,21 @@ public class Model {
    * Should only be called when enemy_ecs is empty of guessed ECs.
    */
   public static void guessSymmetry(MapLocation center) {
-    int[] evidence = { 0, 0, 0 };
+    // An enemy EC whose location we don't know exactly counts as one more piece
+    // of evidence, if it looks like it's across an axis from us
+    Symmetry hint = null;
     if (center != null) {
       MapLocation loc = rc.getLocation();
       int dx = Math.abs(center.x - loc.x);
       int dy = Math.abs(center.y - loc.y);
-      if (dx > 15 && dy < 5) {
-        // Horizontal
-        evidence[0]++;
-      } else if (dy > 15 && dx < 5) {
-        // Vertical
-        evidence[1]++;
-      } else if (dx > 15 && dy > 15) {
-        // Rotational
-        evidence[2]++;
-      }
+      if (dx > 15 && dy < 5)
+        hint = Symmetry.Horizontal;
+      else if (dy > 15 && dx < 5)
+        hint = Symmetry.Vertical;
+      else if (dx > 15 && dy > 15)
+        hint = Symmetry.Rotational;
     }
-    for (ECInfo i : friendly_ecs) {
-      for (int s = 1; s < 4; s++) {
-        Symmetry sym = Symmetry.decode(s);
-        ECInfo ec = ECInfo.guess(sym.swap(i.loc), sym);
-        if (friendly_ecs.contains(ec) || enemy_ecs.contains(ec) || neutral_ecs.contains(ec))
-          evidence[s - 1]++;
-      }
-    }
-    Symmetry sym = null;
-    if (maybe_rot && evidence[2] >= evidence[1] && evidence[2] >= evidence[0])
-      sym = Symmetry.Rotational;
-    else if (maybe_vert && evidence[1] >= evidence[0])
-      sym = Symmetry.Vertical;
-    else if (maybe_horiz)
-      sym = Symmetry.Horizontal;
-    else if (maybe_vert)
-      sym = Symmetry.Vertical;
-    else if (maybe_rot)
-      sym = Symmetry.Rotational;
-    else
-      throw new RuntimeException("All symmetries are impossible!");
-    setSymmetry(sym);
+    setSymmetry(symmetry.best(hint));
   }
 
   /**
@@ -324,12 +433,13 @@ public class Model {
     if (sym == null)
       return;
 
-    for (ECInfo i : friendly_ecs) {
-      guessEC(i.loc);
-    }
-    // Assume neutral ECs have fallen to the enemy
-    for (ECInfo i : neutral_ecs) {
-      guessEC(i.loc);
+    // Assume neutral ECs have fallen to the enemy. Guesses go on the end, so we
+    // only need to look at the ECs that are already there.
+    int n = ecs.size();
+    for (int i = 0; i < n; i++) {
+      ECInfo ec = ecs.get(i);
+      if (ec.status == ECRegistry.FRIENDLY || ec.status == ECRegistry.NEUTRAL)
+        guessEC(ec.loc);
     }
     if (rc.getType() == RobotType.ENLIGHTENMENT_CENTER)
       guessEC(rc.getLocation());
@@ -341,17 +451,18 @@ public class Model {
     ECInfo ec = ECInfo.guess(guessed.swap(original), guessed);
     if (ec.loc == null)
       return;
-    if (rc.getLocation().equals(ec.loc) || friendly_ecs.contains(ec) || enemy_ecs.contains(ec)
-        || neutral_ecs.contains(ec))
+    if (rc.getLocation().equals(ec.loc) || ecs.at(ec.loc) != null)
       return;
     else {
       rc.setIndicatorLine(rc.getLocation(), ec.loc, 255, 255, 0);
-      enemy_ecs.add(ec);
+      ecs.add(ec, ECRegistry.ENEMY);
     }
   }
 
   public static void init(RobotController rc) {
     Model.rc = rc;
+    spawn_round = rc.getRoundNum();
+    FlagCache.init(rc);
   }
 
   public static boolean isNextToEC(MapLocation loc) throws GameActionException {
@@ -366,47 +477,27 @@ public class Model {
     return false;
   }
 
-  static ArrayList<Pair<MapLocation, Integer>> mucks = new ArrayList<>();
-  static StringSet muck_set = new StringSet();
+  static MuckTracker mucks = new MuckTracker();
 
+  /**
+   * Forgets old muckrakers, and returns the closest one we know about, or null.
+   */
   static MapLocation updateMucks() {
     MapLocation loc = rc.getLocation();
-    int closest_d = 100000;
-    MapLocation closest = null;
-    for (int i = 0; i < mucks.size(); i++) {
-      Pair<MapLocation, Integer> m = mucks.get(i);
-      if (rc.getRoundNum() - m.snd > 5) {
-        muck_set.remove(m.fst.toString());
-        mucks.remove(i);
-        i--;
-      } else {
-        int dist2 = m.fst.distanceSquaredTo(loc);
-        if (dist2 < closest_d) {
-          closest = m.fst;
-          closest_d = dist2;
-        }
-      }
-    }
-
-    return closest;
+    mucks.expire(rc.getRoundNum(), loc.x, loc.y);
+    return mucks.closest(loc);
   }
 
   static boolean addMuck(MapLocation muck) {
-    String str = muck.toString();
-    if (!muck_set.add(str))
-      return false;
+    return mucks.add(muck.x, muck.y, rc.getRoundNum());
+  }
 
-    mucks.add(new Pair<>(muck, rc.getRoundNum()));
-    return true;
+  static boolean addMuck(int x, int y) {
+    return mucks.add(x, y, rc.getRoundNum());
   }
 
   static MapLocation muck_epicenter() {
-    int tx = 0, ty = 0;
-    for (Pair<MapLocation, Integer> p : mucks) {
-      tx += p.fst.x;
-      ty += p.fst.y;
-    }
-    return new MapLocation(tx / mucks.size(), ty / mucks.size());
+    return mucks.centroid();
   }
 
   public static boolean cleanup_mode = false;
@@ -417,10 +508,11 @@ public class Model {
    */
   public static boolean isOnMap(MapLocation loc) {
     try {
-      if ((minY != null && loc.y < minY) || (maxY != null && loc.y > maxY) || (minX != null && loc.x < minX)
-          || (maxX != null && loc.x > maxX))
+      int edges = Model.edges;
+      if (((edges & EDGE_MIN_Y) != 0 && loc.y < minY) || ((edges & EDGE_MAX_Y) != 0 && loc.y > maxY)
+          || ((edges & EDGE_MIN_X) != 0 && loc.x < minX) || ((edges & EDGE_MAX_X) != 0 && loc.x > maxX))
         return false;
-      if (minY == null || maxY == null || minX == null || maxX == null) {
+      if (edges != EDGES_ALL) {
         return (!loc.isWithinDistanceSquared(rc.getLocation(), rc.getType().sensorRadiusSquared) || rc.onTheMap(loc));
       } else {
         // We know the edges, no need to consult `rc`.
@@ -451,17 +543,8 @@ public class Model {
 
       // It's possible that unit is *at* the edge, so flag_loc.y = unit_loc.y;
       // but if so, this unit *isn't* at the edge, so we use that instead.
-      if (flag_loc.y < unit_loc.y || flag_loc.y < rc.getLocation().y) {
-        // If we've already seen this edge, don't relay it further; we don't want
-        // infinite loops.
-        if (minY != null)
-          return false;
-        minY = flag_loc.y;
-      } else {
-        if (maxY != null)
-          return false;
-        maxY = flag_loc.y;
-      }
+      boolean is_max = !(flag_loc.y < unit_loc.y || flag_loc.y < rc.getLocation().y);
+      return setEdge(true, is_max, flag_loc.y);
     } else {
       if (flag_loc.x == unit_loc.x && flag_loc.x == rc.getLocation().x) {
         MapLocation alt = rc.getLocation().translate(1, 0);
@@ -471,25 +554,52 @@ public class Model {
           unit_loc = rc.getLocation().translate(-1, 0);
       }
 
-      if (flag_loc.x < unit_loc.x || flag_loc.x < rc.getLocation().x) {
-        if (minX != null)
-          return false;
-        minX = flag_loc.x;
-      } else {
-        if (maxX != null)
-          return false;
-        maxX = flag_loc.x;
-      }
+      boolean is_max = !(flag_loc.x < unit_loc.x || flag_loc.x < rc.getLocation().x);
+      return setEdge(false, is_max, flag_loc.x);
     }
+  }
 
-    rc.setIndicatorLine(rc.getLocation(), flag_loc, 255, 0, 0);
-    // Recalculate symmetry if edges changed
-    setSymmetry(guessed);
+  /**
+   * Like `setEdge()` above, but when we already know which edge it is, so we
+   * only need the coordinate.
+   */
+  public static boolean setEdge(boolean is_y, boolean is_max, int coord) {
+    // If we've already seen this edge, don't relay it further; we don't want
+    // infinite loops.
+    MapLocation loc = rc.getLocation();
+    int bit = (is_y ? EDGE_MIN_Y : EDGE_MIN_X) << (is_max ? 1 : 0);
+    if ((edges & bit) != 0)
+      return false;
+    edges |= bit;
+    if (is_y) {
+      if (is_max)
+        maxY = coord;
+      else
+        minY = coord;
+      rc.setIndicatorLine(loc, new MapLocation(loc.x, coord), 255, 0, 0);
+    } else {
+      if (is_max)
+        maxX = coord;
+      else
+        minX = coord;
+      rc.setIndicatorLine(loc, new MapLocation(coord, loc.y), 255, 0, 0);
+    }
+
+    // If that's the edge we needed to mirror across our guess, make the guesses we
+    // couldn't before
+    if (guessed != null && (SymmetryTracker.mirrorable() & ~symmetry.known & SymmetryTracker.bit(guessed)) != 0) {
+      symmetry.sync();
+      setSymmetry(guessed);
+    }
     return true;
   }
 
   public static boolean knowsEdges() {
-    return minX != null && minY != null && maxX != null && maxY != null;
+    return edges == EDGES_ALL;
+  }
+
+  static boolean hasEdge(int edge) {
+    return (edges & edge) != 0;
   }
 
   /**
@@ -510,48 +620,91 @@ public class Model {
 
   public static boolean addFriendlyEC(ECInfo e) {
     // If we're an EC, we don't want to add ourselves!
-    if (e.id != null && rc.getID() == e.id)
+    if (rc.getID() == e.id)
       return false;
 
-    if (!friendly_ecs.contains(e)) {
-      friendly_ecs.add(e);
+    ECInfo found = ecs.find(e);
+    if (found == null) {
+      ecs.add(e, ECRegistry.FRIENDLY);
       guessEC(e.loc);
       return true;
-    } else {
+    } else if (found.status == ECRegistry.FRIENDLY) {
+      // We might only have known its ID
+      boolean had_loc = found.loc != null;
+      merge(found, e);
+      if (!had_loc)
+        guessEC(found.loc);
       return false;
     }
+    // It's one we knew about that's changed hands
+    merge(found, e);
+    ecs.setGuessed(found, null);
+    ecs.setStatus(found, ECRegistry.FRIENDLY);
+    guessEC(found.loc);
+    return true;
+  }
+
+  /**
+   * Fills in the ID and location of `found` from `e`, another report of the
+   * same EC.
+   */
+  static void merge(ECInfo found, ECInfo e) {
+    if (e.id != NO_ID && e.id != found.id)
+      ecs.setID(found, e.id);
+    if (e.loc != null && found.loc == null) {
+      ECInfo other = ecs.at(e.loc);
+      if (other != null)
+        ecs.remove(other);
+      ecs.setLoc(found, e.loc);
+    }
   }
 
   public static boolean addEnemyEC(ECInfo e) {
-    // Confirm it if we only guessed
-    for (ECInfo i : enemy_ecs) {
-      if (i.loc.equals(e.loc)) {
-        if (i.guessed != null && e.guessed == null) {
-          i.guessed = null;
-          return true;
-        } else {
-          return false;
-        }
+    ECInfo found = ecs.at(e.loc);
+    if (found != null && found.status == ECRegistry.ENEMY) {
+      // Confirm it if we only guessed
+      if (found.guessed != null && e.guessed == null) {
+        ecs.setGuessed(found, null);
+        return true;
+      } else {
+        return false;
       }
     }
     // If there are any enemy ECs, we're no longer in cleanup mode
     cleanup_mode = false;
-    enemy_ecs.add(e);
+    if (found != null) {
+      // It's one we knew about that's changed hands
+      merge(found, e);
+      ecs.setGuessed(found, e.guessed);
+      ecs.setStatus(found, ECRegistry.ENEMY);
+    } else {
+      ecs.add(e, ECRegistry.ENEMY);
+    }
     if (e.loc != null)
       rc.setIndicatorLine(rc.getLocation(), e.loc, 0, 0, 0);
     return true;
   }
 
+  /**
+   * ECs never go back to being neutral, so if we know someone's taken it, we
+   * ignore this. We only replace a guessed enemy EC.
+   */
   public static boolean addNeutralEC(ECInfo e) {
-    if (!neutral_ecs.contains(e)) {
-      neutral_ecs.add(e);
-      if (e.loc != null) {
-        guessEC(e.loc);
-        rc.setIndicatorLine(rc.getLocation(), e.loc, 127, 127, 127);
-      }
-      return true;
-    } else {
+    ECInfo found = ecs.find(e);
+    if (found != null && (found.status != ECRegistry.ENEMY || found.guessed == null))
       return false;
+    if (found != null) {
+      merge(found, e);
+      ecs.setGuessed(found, null);
+      found.influence = e.influence;
+      ecs.setStatus(found, ECRegistry.NEUTRAL);
+    } else {
+      ecs.add(e, ECRegistry.NEUTRAL);
+    }
+    if (e.loc != null) {
+      guessEC(e.loc);
+      rc.setIndicatorLine(rc.getLocation(), e.loc, 127, 127, 127);
     }
+    return true;
   }
 }
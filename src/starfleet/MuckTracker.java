@@ -0,0 +1,112 @@
+package starfleet;
+
+import battlecode.common.*;
+
+/**
+ * The enemy muckrakers we've heard about recently, for slanderers to run from
+ * and politicians to go after. Every unit updates it every turn, so it's built
+ * to be cheap: sightings are packed ints in a fixed ring buffer in the order we
+ * got them, so the oldest are always at the front and expiring them is popping
+ * them off. An `IntMap` from location to round catches repeats, and we keep the
+ * sum of the locations as we go so the centroid doesn't need a pass.
+ *
+ * A sighting is `Flag.packLoc()` bits in the low 14 bits and the round above
+ * that. Maps are at most 64 wide, so the location decodes exactly relative to
+ * wherever we are, see `Flag.unpackX()`.
+ */
+public class MuckTracker {
+  static final int CAPACITY = 64;
+  static final int LOC_BITS = 14;
+  static final int LOC_MASK = (1 << LOC_BITS) - 1;
+  /**
+   * How many rounds we remember a sighting for.
+   */
+  static final int TTL = 5;
+
+  int[] ring = new int[CAPACITY];
+  /**
+   * The oldest sighting is at `head`, and there are `size` of them.
+   */
+  int head = 0;
+  int size = 0;
+  /**
+   * From location bits plus one (so it's never 0) to the round we saw it.
+   */
+  IntMap seen = new IntMap(CAPACITY * 2);
+  int sum_x = 0;
+  int sum_y = 0;
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds a sighting at `(x, y)` in `round`, unless we already have one there.
+   * Returns whether it was new.
+   */
+  boolean add(int x, int y, int round) {
+    int bits = Flag.packLoc(x, y);
+    if (seen.get(bits + 1) != -1)
+      return false;
+    if (size == CAPACITY)
+      pop(x, y);
+    ring[(head + size) % CAPACITY] = bits | (round << LOC_BITS);
+    size++;
+    seen.put(bits + 1, round);
+    sum_x += x;
+    sum_y += y;
+    return true;
+  }
+
+  /**
+   * Forgets sightings older than `TTL` as of `round`. `(near_x, near_y)` is
+   * anywhere on the map, usually where we are.
+   */
+  void expire(int round, int near_x, int near_y) {
+    while (size > 0 && round - (ring[head] >> LOC_BITS) > TTL)
+      pop(near_x, near_y);
+  }
+
+  void pop(int near_x, int near_y) {
+    int bits = ring[head] & LOC_MASK;
+    seen.remove(bits + 1);
+    sum_x -= Flag.unpackX(bits, near_x);
+    sum_y -= Flag.unpackY(bits, near_y);
+    head = (head + 1) % CAPACITY;
+    size--;
+  }
+
+  /**
+   * The sighting closest to `loc`, or null if there aren't any.
+   */
+  MapLocation closest(MapLocation loc) {
+    int best = -1;
+    int best_d = Integer.MAX_VALUE;
+    int best_x = 0;
+    int best_y = 0;
+    for (int k = 0; k < size; k++) {
+      int bits = ring[(head + k) % CAPACITY];
+      int x = Flag.unpackX(bits, loc.x);
+      int y = Flag.unpackY(bits, loc.y);
+      int dx = x - loc.x;
+      int dy = y - loc.y;
+      int d = dx * dx + dy * dy;
+      if (d < best_d) {
+        best = k;
+        best_d = d;
+        best_x = x;
+        best_y = y;
+      }
+    }
+    return best == -1 ? null : new MapLocation(best_x, best_y);
+  }
+
+  /**
+   * The average location of the sightings, or null if there aren't any.
+   */
+  MapLocation centroid() {
+    if (size == 0)
+      return null;
+    return new MapLocation(sum_x / size, sum_y / size);
+  }
+}
@@ -27,7 +27,7 @@ public class Muckraker {
     if (tt >= 3) {
       MapLocation m = new MapLocation(tx / tt, ty / tt);
       rc.setIndicatorDot(m, 255, 0, 0);
-      Robot.queue.add(new Flag(Flag.Type.EnemyCenter, m));
+      Robot.queue.add(Flag.encodeLoc(Flag.Type.EnemyCenter, 0, m, false), rc.getRoundNum());
     }
 
     boolean targeting_slan = false;
@@ -64,7 +64,8 @@ public class Muckraker {
       int ec_dist2 = 100000;
       // Go towards the closest enemy EC
       if (target_ec == null) {
-        for (ECInfo eec : Model.enemy_ecs) {
+        for (int k = Model.ecs.next(ECRegistry.ENEMY, 0); k != -1; k = Model.ecs.next(ECRegistry.ENEMY, k + 1)) {
+          ECInfo eec = Model.ecs.get(k);
           int dist2 = eec.loc.distanceSquaredTo(rc.getLocation());
           if ((target_ec == null || dist2 < ec_dist2) && dist2 > 30) {
             target_ec = eec.loc;
@@ -81,12 +81,16 @@ public class Politician {
 
     int NDIRS = 9;//Direction.cardinalDirections().length + 1;
     MapLocation[] locs = new MapLocation[NDIRS];
+    // The same locations packed, for the distance checks below
+    int[] plocs = new int[NDIRS];
     {
       locs[0] = loc;
+      plocs[0] = Loc.of(loc);
       int i = 1;
       for (Direction dir : ECenter.directions) {//Direction.cardinalDirections()) {
         MapLocation l = loc.add(dir);
         if (rc.onTheMap(l) && !rc.isLocationOccupied(l)) {
+          plocs[i] = Loc.add(plocs[0], dir);
           locs[i++] = l;
         }
       }
@@ -123,8 +127,9 @@ public class Politician {
         any_enemy = true;
       }
 
+      int iloc = Loc.of(i.location);
       for (int li = 0; li < NDIRS; li++) {
-        int dist2 = i.location.distanceSquaredTo(locs[li]);
+        int dist2 = Loc.dist2(iloc, plocs[li]);
         for (int r = 3; r >= 0; r--) {
           if (dist2 <= radii[r])
             rcounts[li][r]++;
@@ -154,17 +159,18 @@ public class Politician {
     for (int j = 0; j < affected.length; j++) {
       RobotInfo i = affected[j];
       rc.setIndicatorDot(i.location, 0, 0, 255);
+      int iloc = Loc.of(i.location);
 
       // TODO keep or remove?
       // Make sure pols don't crowd enemy ECs and not do anything
-      if (i.team != team && i.type == ENLIGHTENMENT_CENTER && i.location.isWithinDistanceSquared(loc, radii[0]))
+      if (i.team != team && i.type == ENLIGHTENMENT_CENTER && Loc.dist2(iloc, plocs[0]) <= radii[0])
         totals[0][0] += emp_cost;
 
 
       if (i.type == ENLIGHTENMENT_CENTER) {
         if (i.team == team) {
           for (int li = 0; li < NDIRS; li++) {
-            int dist2 = i.location.distanceSquaredTo(locs[li]);
+            int dist2 = Loc.dist2(iloc, plocs[li]);
 
             for (int r = 3; r >= 0; r--) {
               if (dist2 <= radii[r]) {
@@ -180,7 +186,7 @@ public class Politician {
           // Complicated stuff
           double conv_to_convert = i.conviction / buff;
           for (int li = 0; li < NDIRS; li++) {
-            int dist2 = i.location.distanceSquaredTo(locs[li]);
+            int dist2 = Loc.dist2(iloc, plocs[li]);
 
             for (int r = 3; r >= 0; r--) {
               if (dist2 <= radii[r]) {
@@ -210,7 +216,7 @@ public class Politician {
           if (i.conviction == cap)
             continue;
           for (int li = 0; li < NDIRS; li++) {
-            int dist2 = i.location.distanceSquaredTo(locs[li]);
+            int dist2 = Loc.dist2(iloc, plocs[li]);
             int[] rc = rcounts[li];
             int[] tot = totals[li];
 
@@ -228,7 +234,7 @@ public class Politician {
           // kill it. Also, sometimes conviction is 0, but the unit can still be killed.
           if (i.type == POLITICIAN) {
             for (int li = 0; li < NDIRS; li++) {
-              int dist2 = i.location.distanceSquaredTo(locs[li]);
+              int dist2 = Loc.dist2(iloc, plocs[li]);
               int[] rc = rcounts[li];
               int[] tot = totals[li];
 
@@ -246,7 +252,7 @@ public class Politician {
             }
           } else {
             for (int li = 0; li < NDIRS; li++) {
-              int dist2 = i.location.distanceSquaredTo(locs[li]);
+              int dist2 = Loc.dist2(iloc, plocs[li]);
               int[] rcs = rcounts[li];
               int[] tot = totals[li];
 
@@ -363,7 +369,8 @@ public class Politician {
     // Find the closest neutral EC
     MapLocation target_ec = null;
     int ec_dist2 = 1000000;
-    for (ECInfo eec : Model.neutral_ecs) {
+    for (int k = Model.ecs.next(ECRegistry.NEUTRAL, 0); k != -1; k = Model.ecs.next(ECRegistry.NEUTRAL, k + 1)) {
+      ECInfo eec = Model.ecs.get(k);
       // Only go for it if we'll kill it
       if (eec.influence >= (rc.getConviction() - 10))
         continue;
@@ -375,7 +382,8 @@ public class Politician {
     }
     // If there aren't any neutral ECs, and we have >= 100 conv, target an enemy EC
     if (target_ec == null && rc.getConviction() - 10 >= 100) {
-      for (ECInfo eec : Model.enemy_ecs) {
+      for (int k = Model.ecs.next(ECRegistry.ENEMY, 0); k != -1; k = Model.ecs.next(ECRegistry.ENEMY, k + 1)) {
+        ECInfo eec = Model.ecs.get(k);
         int dist2 = eec.loc.distanceSquaredTo(rc.getLocation());
         if (target_ec == null || dist2 < ec_dist2) {
           target_ec = eec.loc;
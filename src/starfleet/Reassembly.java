@@ -0,0 +1,46 @@
+package starfleet;
+
+/**
+ * Puts Fragment flags back together into 30-bit messages. Each sender gets a
+ * slot picked by its ID, so memory is bounded and each read costs the same no
+ * matter how many senders there are. If two senders share a slot, the newer
+ * first half evicts the older one, which then just has to be resent.
+ */
+public class Reassembly {
+  static final int SLOTS = 32;
+  /**
+   * How many rounds we wait for the second half of a message before giving up
+   * on it. Units hold each flag for a few turns, so this needs to be longer
+   * than that.
+   */
+  static final int TIMEOUT = 20;
+
+  int[] ids = new int[SLOTS];
+  int[] firsts = new int[SLOTS];
+  int[] rounds = new int[SLOTS];
+
+  /**
+   * Feeds a Fragment flag sent by the unit `id`. Returns the whole message if
+   * this completed one, otherwise -1. The kind of the message is
+   * `Flag.fragKind(flag)`.
+   */
+  int add(int id, int flag, int round) {
+    int slot = id & (SLOTS - 1);
+    if (Flag.fragIndex(flag) == 0) {
+      ids[slot] = id;
+      firsts[slot] = flag;
+      rounds[slot] = round;
+      return -1;
+    }
+
+    int first = firsts[slot];
+    if (ids[slot] != id || round - rounds[slot] > TIMEOUT || Flag.fragKind(first) != Flag.fragKind(flag)
+        || Flag.fragSeq(first) != Flag.fragSeq(flag))
+      return -1;
+
+    // We'll keep seeing this fragment until the sender moves on, so make sure we
+    // only return the message once
+    ids[slot] = 0;
+    return (Flag.fragData(flag) << Flag.FRAG_DATA_BITS) | Flag.fragData(first);
+  }
+}
@@ -1,6 +1,5 @@
 package starfleet;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import battlecode.common.*;
 import static battlecode.common.RobotType.*;
@@ -86,10 +85,11 @@ public class Robot {
   }
 
   static MapLocation retarget() {
-    int width = (Model.minX != null && Model.maxX != null) ? Model.maxX - Model.minX : 64;
-    int height = (Model.minY != null && Model.maxY != null) ? Model.maxY - Model.minY : 64;
-    MapLocation min = new MapLocation(Model.minX != null ? Model.minX : rc.getLocation().x - width / 2,
-        Model.minY != null ? Model.minY : rc.getLocation().y - height / 2);
+    int edges = Model.edges;
+    int width = (edges & Model.EDGES_X) == Model.EDGES_X ? Model.maxX - Model.minX : 64;
+    int height = (edges & Model.EDGES_Y) == Model.EDGES_Y ? Model.maxY - Model.minY : 64;
+    MapLocation min = new MapLocation((edges & Model.EDGE_MIN_X) != 0 ? Model.minX : rc.getLocation().x - width / 2,
+        (edges & Model.EDGE_MIN_Y) != 0 ? Model.minY : rc.getLocation().y - height / 2);
 
     return retarget(min, width, height);
   }
@@ -129,7 +129,7 @@ public class Robot {
 
   // -- COMMUNICATION -- //
 
-  static ArrayDeque<Flag> queue = new ArrayDeque<>();
+  static FlagQueue queue = new FlagQueue();
   public static ArrayList<RobotInfo> friendly_slanderers = new ArrayList<>(20);
 
   static Team team;
@@ -139,7 +139,7 @@ public class Robot {
    * Our home EC's location and ID.
    */
   static MapLocation ec;
-  static Integer ec_id;
+  static int ec_id = Model.NO_ID;
 
   /**
    * When we see a new EC, we switch to that as home EC, but first we need to tell
@@ -147,7 +147,7 @@ public class Robot {
    * location and ID in these `pending_*` variables.
    */
   static MapLocation pending_ec;
-  static Integer pending_id;
+  static int pending_id = Model.NO_ID;
 
   /**
    * Slanderers keep track of where nearby pols are, so they don't go too far
@@ -155,10 +155,10 @@ public class Robot {
    * have seen_pol to keep track of whether we've seen any politicians at all.
    */
   static boolean seen_pol = false;
-  static Integer pol_min_x = null;
-  static Integer pol_max_x = null;
-  static Integer pol_min_y = null;
-  static Integer pol_max_y = null;
+  static int pol_min_x;
+  static int pol_max_x;
+  static int pol_min_y;
+  static int pol_max_y;
 
   /**
    * We keep track of the location of the last muckraker message we got in
@@ -192,10 +192,10 @@ public class Robot {
     if (Model.home_ec_died) {
       Model.home_ec_died = false;
       ec = null;
-      ec_id = null;
+      ec_id = Model.NO_ID;
     }
 
-    if (ec_id != null) {
+    if (ec_id != Model.NO_ID) {
       rc.setIndicatorLine(rc.getLocation(), ec, 128, 128, 0);
     }
 
@@ -214,15 +214,15 @@ public class Robot {
 
     // Sense nearby robots and store them in `nearby`
     nearby = rc.senseNearbyRobots();
+    relay_mode = rc.getType() == POLITICIAN && !friendly_slanderers.isEmpty();
     friendly_slanderers.clear();
     muckraker = null;
-    pol_min_x = null;
-    pol_min_y = null;
-    pol_max_x = null;
-    pol_max_y = null;
     seen_pol = false;
+    relay_reads = 0;
     // If we're close to an edge, allow slanderers to it
     MapLocation loc = rc.getLocation();
+    int here = Loc.of(loc);
+    int muck_d2 = 0;
     // if (Model.minX != null && Math.abs(loc.x - Model.minX) < 6)
     // pol_min_x = Model.minX;
     // if (Model.minY != null && Math.abs(loc.y - Model.minY) < 6)
@@ -238,18 +238,22 @@ public class Robot {
         // If it's a friendly EC, it might have been converted and needs to be removed
         // from enemy_ecs and sent to others
         if (i.type == ENLIGHTENMENT_CENTER) {
-          ECInfo ecif = new ECInfo(i.ID);
-          ecif.loc = iloc;
-
-          if (Model.enemy_ecs.remove(ecif) || Model.neutral_ecs.remove(ecif)) {
-            rc.setIndicatorLine(rc.getLocation(), iloc, 255, 0, 255);
-            Model.last_converted = iloc;
-            queue.add(new Flag(Flag.Type.ConvertF, iloc));
-          }
+          // Usually we already know it's ours, and then there's nothing to update
+          ECInfo known = Model.ecs.withID(i.ID);
+          if (known == null || known.status != ECRegistry.FRIENDLY || known.loc == null) {
+            ECInfo ecif = new ECInfo(i.ID);
+            ecif.loc = iloc;
+
+            if (Model.ecs.remove(ECRegistry.ENEMY, ecif) || Model.ecs.remove(ECRegistry.NEUTRAL, ecif)) {
+              rc.setIndicatorLine(rc.getLocation(), iloc, 255, 0, 255);
+              Model.last_converted = iloc;
+              queue.add(Flag.encodeLoc(Flag.Type.ConvertF, 0, iloc, false), rc.getRoundNum());
+            }
 
-          if (Model.addFriendlyEC(ecif)) {
-            if (ec_id != null && ec_id != i.ID) {
-              queue.add(new Flag(Flag.Type.FriendlyEC, i.ID));
+            if (Model.addFriendlyEC(ecif)) {
+              if (ec_id != Model.NO_ID && ec_id != i.ID) {
+                queue.add(Flag.encodeID(Flag.Type.FriendlyEC, i.ID, false), rc.getRoundNum());
+              }
             }
           }
 
@@ -257,8 +261,8 @@ public class Robot {
           if (ec == null && iloc.isWithinDistanceSquared(loc, 2)) {
             ec = iloc;
             ec_id = i.ID;
-          } else if (ec_id == null || ec_id != i.ID) {
-            queue.add(new Flag(Flag.Type.AdoptMe, i.ID));
+          } else if (ec_id != i.ID) {
+            queue.add(Flag.encodeID(Flag.Type.AdoptMe, i.ID, false), rc.getRoundNum());
             pending_ec = iloc;
             pending_id = i.ID;
             Model.last_converted = null;
@@ -270,18 +274,30 @@ public class Robot {
         if (rc.getRoundNum() != start_round || Clock.getBytecodesLeft() < 1000)
           break;
 
-        if (Flag.isSlanderer(rc.getFlag(i.ID))) {
+        // See the comment above `relay()` for which neighbors we read
+        if (i.type != ENLIGHTENMENT_CENTER && ((i.ID ^ start_round) & 1) == 0 && relay_reads < RELAY_SAMPLE) {
+          relay_reads++;
+          int flag = FlagCache.get(i.ID);
+          if (flag != FlagCache.DEAD)
+            relay(flag);
+        }
+        if (RoleCache.isSlanderer(i, start_round)) {
           friendly_slanderers.add(i);
         } else if (i.type == POLITICIAN) {
-          seen_pol = true;
-          if (pol_min_x == null || iloc.x < pol_min_x)
-            pol_min_x = iloc.x;
-          if (pol_max_x == null || iloc.x > pol_max_x)
-            pol_max_x = iloc.x;
-          if (pol_min_y == null || iloc.y < pol_min_y)
-            pol_min_y = iloc.y;
-          if (pol_max_y == null || iloc.y > pol_max_y)
-            pol_max_y = iloc.y;
+          if (!seen_pol) {
+            seen_pol = true;
+            pol_min_x = pol_max_x = iloc.x;
+            pol_min_y = pol_max_y = iloc.y;
+          } else {
+            if (iloc.x < pol_min_x)
+              pol_min_x = iloc.x;
+            else if (iloc.x > pol_max_x)
+              pol_max_x = iloc.x;
+            if (iloc.y < pol_min_y)
+              pol_min_y = iloc.y;
+            else if (iloc.y > pol_max_y)
+              pol_max_y = iloc.y;
+          }
         }
 
       } else if (i.type == ENLIGHTENMENT_CENTER) {
@@ -290,28 +306,30 @@ public class Robot {
 
         if (i.team == team.opponent()) {
           // It's an enemy EC
-          Model.friendly_ecs.remove(ecif);
-          Model.neutral_ecs.remove(ecif);
           if (Model.addEnemyEC(ecif)) {
-            queue.add(new Flag(Flag.Type.EnemyEC, iloc));
+            queue.add(Flag.encodeLoc(Flag.Type.EnemyEC, 0, iloc, false), rc.getRoundNum());
           }
         } else {
           // It's a neutral EC
           if (Model.addNeutralEC(ecif)) {
-            queue.add(Flag.neutralEC(i.location, i.influence));
+            // We send the exact influence along with it, see showFlag()
+            queue.add(Flag.encodeLoc(Flag.Type.NeutralEC, Flag.neutralBits(i.influence), iloc, false), i.influence,
+                rc.getRoundNum());
           }
         }
       } else if (i.type == MUCKRAKER) {
-        if (muckraker == null
-            || i.location.isWithinDistanceSquared(rc.getLocation(), muckraker.distanceSquaredTo(rc.getLocation()))) {
-          muckraker = i.location;
+        int d2 = Loc.dist2(Loc.of(iloc), here);
+        if (muckraker == null || d2 <= muck_d2) {
+          muckraker = iloc;
+          muck_d2 = d2;
           muck_conv = i.conviction;
         }
       }
     }
 
     // Check if we can confirm or deny guessed ECs in range
-    for (ECInfo i : Model.enemy_ecs) {
+    for (int k = Model.ecs.next(ECRegistry.ENEMY, 0); k != -1; k = Model.ecs.next(ECRegistry.ENEMY, k + 1)) {
+      ECInfo i = Model.ecs.get(k);
       if (i.guessed != null) {
         if (rc.canSenseLocation(i.loc)) {
           RobotInfo r = rc.senseRobotAtLocation(i.loc);
@@ -319,7 +337,7 @@ public class Robot {
           if (r == null || r.type != ENLIGHTENMENT_CENTER) {
             rc.setIndicatorDot(i.loc, 255, 0, 0);
             Model.wrongSymmetry(i.guessed, false);
-            queue.add(new Flag(Flag.Type.WrongSymmetry, i.guessed.encode()));
+            queue.add(Flag.encodeID(Flag.Type.WrongSymmetry, i.guessed.encode(), false), rc.getRoundNum());
             ec_noticed_wrong_sym = false;
             break;
           }
@@ -329,16 +347,16 @@ public class Robot {
 
     // Check for edges ourselves
     int sensor_radius = (int) Math.sqrt(rc.getType().sensorRadiusSquared);
-    if (Model.minX == null && !rc.onTheMap(loc.translate(-sensor_radius, 0))) {
+    if (!Model.hasEdge(Model.EDGE_MIN_X) && !rc.onTheMap(loc.translate(-sensor_radius, 0))) {
       tryQueue(Model.findEdge(loc.translate(-sensor_radius, 0), 1, 0, false));
     }
-    if (Model.maxX == null && !rc.onTheMap(loc.translate(sensor_radius, 0))) {
+    if (!Model.hasEdge(Model.EDGE_MAX_X) && !rc.onTheMap(loc.translate(sensor_radius, 0))) {
       tryQueue(Model.findEdge(loc.translate(sensor_radius, 0), -1, 0, false));
     }
-    if (Model.minY == null && !rc.onTheMap(loc.translate(0, -sensor_radius))) {
+    if (!Model.hasEdge(Model.EDGE_MIN_Y) && !rc.onTheMap(loc.translate(0, -sensor_radius))) {
       tryQueue(Model.findEdge(loc.translate(0, -sensor_radius), 0, 1, true));
     }
-    if (Model.maxY == null && !rc.onTheMap(loc.translate(0, sensor_radius))) {
+    if (!Model.hasEdge(Model.EDGE_MAX_Y) && !rc.onTheMap(loc.translate(0, sensor_radius))) {
       tryQueue(Model.findEdge(loc.translate(0, sensor_radius), 0, -1, true));
     }
 
@@ -352,6 +370,93 @@ public class Robot {
     closest_muck = Model.updateMucks();
   }
 
+  // -- RELAYS -- //
+  // A muckraker only gets to units that aren't near the robot that saw it once
+  // the EC reads the sighting and rebroadcasts it, which takes a few rounds and
+  // only reaches the EC's own units. So we also pass sightings on between
+  // neighbors: a robot that sees a neighbor showing a Muckraker, or relaying one
+  // in a Muckraker2, shows a Muckraker2 with the hop count one higher and the
+  // same origin round.
+  //
+  // We don't want to read every neighbor's flag every turn (see RoleCache), so
+  // we read those with IDs of the same parity as the round, up to
+  // `RELAY_SAMPLE` of them, and relays stay up for two rounds so all our
+  // neighbors get to see them.
+
+  /**
+   * Whether we pass relays on, not just listen to them. Only politicians that had
+   * slanderers around last turn do, since they're the ones guarding against
+   * muckrakers; everyone else has their own things to send.
+   */
+  static boolean relay_mode = false;
+  /**
+   * We stop passing on a relay once its muckraker was seen this many rounds ago,
+   * since `MuckTracker` forgets muckrakers after `TTL` rounds anyway.
+   */
+  static final int MAX_RELAY_AGE = MuckTracker.TTL - 1;
+  /**
+   * We read at most this many neighbors' flags for relays each turn.
+   */
+  static final int RELAY_SAMPLE = 12;
+  /**
+   * The last few relays we queued, as location bits and origin round, so we
+   * don't pass on the same one twice when several neighbors show it.
+   */
+  static final int RELAY_MEMORY = 16;
+  static int[] relayed = new int[RELAY_MEMORY];
+  static int relayed_next = 0;
+  static int relay_reads = 0;
+  /**
+   * For measuring how fast relays spread: how many we heard, and their total age
+   * and hops when we heard them. `relay_age_sum / relay_hop_sum` is rounds per
+   * hop. Only counted with `RobotPlayer.DEBUG_STATS` on.
+   */
+  static int relays_heard = 0;
+  static int relay_age_sum = 0;
+  static int relay_hop_sum = 0;
+
+  /**
+   * Looks at a neighbor's flag, and if it's a muckraker, remembers it and passes
+   * it on if we're in relay mode.
+   */
+  static void relay(int flag) {
+    int header = Flag.header(flag);
+    if (header != Flag.Type.Muckraker.header && header != Flag.Type.Muckraker2.header)
+      return;
+    int round = rc.getRoundNum();
+
+    // A Muckraker is a neighbor seeing it right now
+    int hops = 0;
+    int origin = round;
+    if (header == Flag.Type.Muckraker2.header) {
+      hops = Flag.relayHops(flag);
+      int age = Flag.relayAge(flag, round);
+      if (age > MAX_RELAY_AGE)
+        return;
+      origin = round - age;
+      if (RobotPlayer.DEBUG_STATS) {
+        relays_heard++;
+        relay_age_sum += age;
+        relay_hop_sum += hops;
+      }
+    }
+
+    MapLocation here = rc.getLocation();
+    Model.addMuck(Flag.x(flag, here.x), Flag.y(flag, here.y));
+    if (!relay_mode || round - origin >= MAX_RELAY_AGE)
+      return;
+
+    // Plus one, so it isn't 0 like the empty slots
+    int key = (Flag.locBits(flag) | ((origin & 0b111) << Flag.AUX_FLAG_SHIFT)) + 1;
+    for (int k : relayed)
+      if (k == key)
+        return;
+    relayed[relayed_next] = key;
+    relayed_next = (relayed_next + 1) % RELAY_MEMORY;
+    queue.add(Flag.encodeLoc(Flag.Type.Muckraker2, Flag.relayBits(hops + 1, origin),
+        Flag.loc(here, flag), false), round);
+  }
+
   static MapLocation closest_muck = null;
   static boolean needs_reporting;
 
@@ -360,70 +465,130 @@ public class Robot {
    */
   static void tryQueue(Flag flag) {
     if (flag != null)
-      queue.add(flag);
+      queue.add(flag.encode(false), rc.getRoundNum());
   }
 
   static int counter = 0;
   static boolean scary_muk = false;
+  /**
+   * The sequence bit for the next message we split into Fragments, and the
+   * second Fragment if we're halfway through one, otherwise -1.
+   */
+  static int frag_seq = 0;
+  static int next_fragment = -1;
+  /**
+   * How many rounds the home EC has had to see the message from the queue we're
+   * showing, or -1 if we aren't showing one. When we take it down, if our EC
+   * told us how long it needs, we count whether that was too short (the EC might
+   * not have seen it) or longer than it needed to be. Only kept with
+   * `RobotPlayer.DEBUG_STATS` on.
+   */
+  static int shown_turns = -1;
+  static int dropped_flags = 0;
+  static int overheld_flags = 0;
+
+  static void endMessage() {
+    if (!RobotPlayer.DEBUG_STATS)
+      return;
+    int cycle = Model.home_ec_poll_cycle;
+    if (shown_turns >= 0 && cycle > 0) {
+      if (shown_turns < cycle)
+        dropped_flags++;
+      else if (shown_turns > cycle)
+        overheld_flags++;
+    }
+    shown_turns = -1;
+  }
 
   public static void showFlag() throws GameActionException {
     if (ec == null)
       return;
+    if (RobotPlayer.DEBUG_STATS && shown_turns >= 0)
+      shown_turns++;
 
     // Tell the EC about nearby muckrakers
     if (muckraker != null && needs_reporting) {
+      endMessage();
       scary_muk = true;
       needs_reporting = false;
-      rc.setFlag(Flag.muckraker(muckraker, (rc.getType() == SLANDERER || !friendly_slanderers.isEmpty()), muck_conv)
-          .encode(ec, rc.getType() == SLANDERER));
+      rc.setFlag(Flag.encodeLoc(Flag.Type.Muckraker,
+          Flag.muckBits(rc.getType() == SLANDERER || !friendly_slanderers.isEmpty(), muck_conv), muckraker,
+          rc.getType() == SLANDERER));
       // rc.setFlag(new Flag(Flag.Type.Muckraker, (rc.getType() == SLANDERER ||
       // !friendly_slanderers.isEmpty()), muckraker)
-      // .encode(ec, rc.getType() == SLANDERER));
+      // .encode(rc.getType() == SLANDERER));
       rc.setIndicatorLine(rc.getLocation(), muckraker, 0, 0, 255);
       return;
     } else if (muckraker == null && scary_muk) {
       // If we're currently showing a flag reporting a nearby muck, but it's gone, get
       // rid of the flag
       scary_muk = false;
-      rc.setFlag(new Flag(Flag.Type.None).encode(ec, rc.getType() == SLANDERER));
+      rc.setFlag(Flag.encodeNone(rc.getType() == SLANDERER));
     }
 
-    // Make sure to display the flag for enough turns that our home EC sees it
-    int nturns = rc.getRobotCount() / 200;
+    // Make sure to display the flag for enough turns that our home EC sees it. If
+    // it told us how long it takes to read all its units' flags, that's exactly
+    // how long, otherwise we guess from how many units it might have.
+    int nturns = Model.home_ec_poll_cycle > 0 ? Model.home_ec_poll_cycle - 1 : rc.getRobotCount() / 200;
     if (counter < nturns) {
       counter++;
       return;
     }
 
-    if (!queue.isEmpty()) {
-      Flag next = queue.remove();
+    // The second half of a message goes right after the first
+    int next = next_fragment;
+    next_fragment = -1;
+    if (next == -1)
+      next = queue.poll(rc.getRoundNum());
 
-      switch (next.type) {
+    if (next != -1) {
+      switch (Flag.getType(next)) {
       case AdoptMe:
-        if (pending_id != next.id
+        if (pending_id == Model.NO_ID || pending_id != Flag.id(next)
             || !pending_ec.isWithinDistanceSquared(rc.getLocation(), ENLIGHTENMENT_CENTER.sensorRadiusSquared)) {
           return;
         }
         ec = pending_ec;
         ec_id = pending_id;
+        // We don't know how fast the new one is yet
+        Model.home_ec_poll_cycle = 0;
         // Get rid of the symmetry the old EC thought so we don't tell the new one it's
         // wrong
         Model.wrongSymmetry(null, false);
         break;
+      // Our EC doesn't need to see these for long
       case None:
       case Muckraker:
         break;
+      // Neighbors only read our flag every other round
+      case Muckraker2:
+        counter = nturns - 1;
+        break;
+
+      case NeutralEC: {
+        // Send it with its exact influence instead, which takes two flags
+        int message = Flag.locBits(next) | (queue.extra << Flag.FRAG_DATA_BITS);
+        frag_seq ^= 1;
+        next = Flag.encodeFragment(Flag.FRAG_NEUTRAL_EC, frag_seq, 0, message & Flag.FRAG_DATA_MASK, false);
+        next_fragment = Flag.encodeFragment(Flag.FRAG_NEUTRAL_EC, frag_seq, 1, message >> Flag.FRAG_DATA_BITS,
+            false);
+        counter = 0;
+        break;
+      }
 
       case WrongSymmetry:
-        if (ec_noticed_wrong_sym || (pending_id != null && pending_id != ec_id))
+        if (ec_noticed_wrong_sym || (pending_id != Model.NO_ID && pending_id != ec_id))
           return;
       default:
         counter = 0;
       }
 
-      rc.setFlag(next.encode(ec, rc.getType() == SLANDERER));
+      endMessage();
+      rc.setFlag(Flag.withSlanderer(next, rc.getType() == SLANDERER));
+      shown_turns = 0;
     } else {
-      rc.setFlag(new Flag(Flag.Type.None).encode(ec, rc.getType() == SLANDERER));
+      endMessage();
+      rc.setFlag(Flag.encodeNone(rc.getType() == SLANDERER));
     }
   }
 
@@ -446,6 +611,18 @@ public class Robot {
     }
 
     showFlag();
+
+    if (RobotPlayer.DEBUG_STATS && rc.getRoundNum() % RobotPlayer.STATS_INTERVAL == 0)
+      reportStats();
+  }
+
+  static void reportStats() {
+    System.out.println("relays heard " + relays_heard + ", rounds per hop "
+        + (relay_hop_sum == 0 ? "-" : String.valueOf((double) relay_age_sum / relay_hop_sum))
+        + (Model.bootstrap_rounds == -1 ? ", no bootstrap yet"
+            : ", bootstrap took " + Model.bootstrap_rounds + " rounds")
+        + ", role flags read " + RoleCache.reads + ", cached " + RoleCache.hits
+        + ", messages shown too briefly " + dropped_flags + ", too long " + overheld_flags);
   }
 
   public static void init(RobotController rc) {
@@ -472,7 +649,7 @@ public class Robot {
 
     try {
       if (rc.getType() == SLANDERER)
-        rc.setFlag(new Flag(Flag.Type.None).encode(rc.getLocation(), true));
+        rc.setFlag(Flag.encodeNone(true));
     } catch (GameActionException e) {
       e.printStackTrace();
     }
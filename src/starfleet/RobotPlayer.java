@@ -4,6 +4,13 @@ import battlecode.common.*;
 import static battlecode.common.RobotType.*;
 
 public strictfp class RobotPlayer {
+  /**
+   * Whether units print the counters we keep for tuning every `STATS_INTERVAL`
+   * rounds. It's a constant so when it's off the counting compiles away too.
+   */
+  static final boolean DEBUG_STATS = false;
+  static final int STATS_INTERVAL = 100;
+
   public static void run(RobotController rc) throws GameActionException {
     if (rc.getRoundNum() == 1)
       System.out.println("STARFLEET v FINAL");
@@ -0,0 +1,59 @@
+package starfleet;
+
+import battlecode.common.*;
+
+/**
+ * Remembers which friendly units are slanderers, so we don't need to read every
+ * neighbor's flag every turn to find out. We only read a unit's flag the first
+ * time we see it, and a slanderer's again when it might have turned into a
+ * politician: when the type we sense for it changes, or every `RECHECK_ROUNDS`
+ * in case we can't tell from the type.
+ *
+ * It's direct-mapped by ID like `FlagCache`, so it's a fixed size: if two IDs
+ * share a slot, the newer one wins and the older one is read again next time.
+ */
+public class RoleCache {
+  static final int SIZE = 128;
+  static final int MASK = SIZE - 1;
+  static final int RECHECK_ROUNDS = 20;
+
+  static int[] ids = new int[SIZE];
+  static boolean[] slanderers = new boolean[SIZE];
+  static RobotType[] types = new RobotType[SIZE];
+  /**
+   * The round we last read the unit's flag.
+   */
+  static int[] checked = new int[SIZE];
+  /**
+   * How many flags we read and how many times we didn't need to. Only counted
+   * with `RobotPlayer.DEBUG_STATS` on.
+   */
+  static int reads = 0;
+  static int hits = 0;
+
+  /**
+   * Whether the friendly unit `r` is a slanderer, as its flag says. Dead units
+   * aren't.
+   */
+  static boolean isSlanderer(RobotInfo r, int round) {
+    int slot = r.ID & MASK;
+    if (ids[slot] == r.ID && types[slot] == r.type
+        && (!slanderers[slot] || round - checked[slot] < RECHECK_ROUNDS)) {
+      if (RobotPlayer.DEBUG_STATS)
+        hits++;
+      return slanderers[slot];
+    }
+
+    if (RobotPlayer.DEBUG_STATS)
+      reads++;
+    int flag = FlagCache.get(r.ID);
+    if (flag == FlagCache.DEAD)
+      return false;
+    boolean is_slanderer = Flag.isSlanderer(flag);
+    ids[slot] = r.ID;
+    slanderers[slot] = is_slanderer;
+    types[slot] = r.type;
+    checked[slot] = round;
+    return is_slanderer;
+  }
+}
@@ -80,7 +80,8 @@ public class Slanderer {
     } else {
       MapLocation closest = null;
       int closest_d = 100000;
-      for (ECInfo i : Model.friendly_ecs) {
+      for (int k = Model.ecs.next(ECRegistry.FRIENDLY, 0); k != -1; k = Model.ecs.next(ECRegistry.FRIENDLY, k + 1)) {
+        ECInfo i = Model.ecs.get(k);
         if (i.loc != null) {
           int dist2 = i.loc.distanceSquaredTo(loc);
           if (dist2 < closest_d) {
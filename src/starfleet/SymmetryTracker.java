@@ -0,0 +1,138 @@
+package starfleet;
+
+/**
+ * Which symmetries the map could still have, and how much evidence we have for
+ * each, kept up to date as ECs and edges come in instead of recounted whenever
+ * we want to guess.
+ *
+ * The evidence for a symmetry is how many friendly ECs have an EC we've actually
+ * seen (not guessed) at their mirror image. Each friendly EC remembers which
+ * symmetries it counts for in `ECInfo.evidence`, so when an EC changes we only
+ * need to recount it and the ECs at its three mirror images. The registry keeps
+ * a list of the ECs that changed (see `ECRegistry.touch()`), and we work through
+ * it in `sync()`, so nothing happens until somebody asks for a guess. An edge
+ * that lets us mirror across a new axis means recounting every friendly EC, but
+ * that happens at most three times a game.
+ */
+public class SymmetryTracker {
+  static final Symmetry[] ALL = Symmetry.values();
+
+  ECRegistry ecs;
+  /**
+   * Bitmasks of `bit()`s: the symmetries nobody's ruled out, and the ones we
+   * know enough edges to mirror across as of the last `sync()`.
+   */
+  int possible = 0b111;
+  int known = 0;
+  int[] evidence = new int[3];
+
+  SymmetryTracker(ECRegistry ecs) {
+    this.ecs = ecs;
+  }
+
+  static int bit(Symmetry sym) {
+    return 1 << sym.ordinal();
+  }
+
+  boolean isPossible(Symmetry sym) {
+    return (possible & bit(sym)) != 0;
+  }
+
+  void ruleOut(Symmetry sym) {
+    possible &= ~bit(sym);
+  }
+
+  int evidence(Symmetry sym) {
+    sync();
+    return evidence[sym.ordinal()];
+  }
+
+  /**
+   * The symmetries we have the edges to mirror across.
+   */
+  static int mirrorable() {
+    int x = (Model.edges & Model.EDGES_X) == Model.EDGES_X ? 1 : 0;
+    int y = (Model.edges & Model.EDGES_Y) == Model.EDGES_Y ? 1 : 0;
+    return x | (y << 1) | ((x & y) << 2);
+  }
+
+  /**
+   * Brings the evidence up to date with the ECs that changed and the edges we've
+   * found since last time.
+   */
+  void sync() {
+    int now = mirrorable();
+    if (now != known) {
+      known = now;
+      for (int k = ecs.next(ECRegistry.FRIENDLY, 0); k != -1; k = ecs.next(ECRegistry.FRIENDLY, k + 1))
+        recount(ecs.get(k));
+    }
+    for (int i = 0; i < ecs.nchanged; i++) {
+      ECInfo e = ecs.changed[i];
+      e.changed = false;
+      update(e);
+    }
+    ecs.nchanged = 0;
+  }
+
+  /**
+   * Recounts `e` and any friendly ECs it might be evidence for.
+   */
+  void update(ECInfo e) {
+    recount(e);
+    if (e.loc == null)
+      return;
+    for (int s = 0; s < 3; s++) {
+      if ((known & (1 << s)) == 0)
+        continue;
+      // Every symmetry is its own inverse, so those ECs are at e's mirror images
+      ECInfo m = ecs.at(ALL[s].swap(e.loc));
+      if (m != null && m != e && m.status == ECRegistry.FRIENDLY)
+        recount(m);
+    }
+  }
+
+  void recount(ECInfo f) {
+    int mask = 0;
+    if (f.status == ECRegistry.FRIENDLY && f.loc != null) {
+      for (int s = 0; s < 3; s++) {
+        if ((known & (1 << s)) == 0)
+          continue;
+        ECInfo m = ecs.at(ALL[s].swap(f.loc));
+        if (m != null && m.status != ECRegistry.NONE && m.guessed == null)
+          mask |= 1 << s;
+      }
+    }
+    int diff = mask ^ f.evidence;
+    for (int s = 0; s < 3; s++)
+      if ((diff & (1 << s)) != 0)
+        evidence[s] += (mask & (1 << s)) != 0 ? 1 : -1;
+    f.evidence = mask;
+  }
+
+  /**
+   * The possible symmetry with the most evidence, counting `hint` (if there is
+   * one) as one more. Ties go to rotational, then vertical.
+   */
+  Symmetry best(Symmetry hint) {
+    sync();
+    int h = evidence[0] + (hint == Symmetry.Horizontal ? 1 : 0);
+    int v = evidence[1] + (hint == Symmetry.Vertical ? 1 : 0);
+    int r = evidence[2] + (hint == Symmetry.Rotational ? 1 : 0);
+    boolean maybe_horiz = isPossible(Symmetry.Horizontal);
+    boolean maybe_vert = isPossible(Symmetry.Vertical);
+    boolean maybe_rot = isPossible(Symmetry.Rotational);
+    if (maybe_rot && r >= v && r >= h)
+      return Symmetry.Rotational;
+    else if (maybe_vert && v >= h)
+      return Symmetry.Vertical;
+    else if (maybe_horiz)
+      return Symmetry.Horizontal;
+    else if (maybe_vert)
+      return Symmetry.Vertical;
+    else if (maybe_rot)
+      return Symmetry.Rotational;
+    else
+      throw new RuntimeException("All symmetries are impossible!");
+  }
+}
@@ -42,23 +42,46 @@ public class Flag {
 
   public enum Type {
     /** Header 0. */
-    None,
+    None(0),
     /**
      * Header 1. A message saying we found a new map edge. If the aux_flag is set,
      * it's in the y coordinate, otherwise it's x. Whether it's the lower or upper
      * edge is obvious by comparing to any unit location.
      */
-    Edge,
+    Edge(1),
     /**
      * Header 2. A message saying we found an enemy or neutral Enlightenment Center,
      * with its location.
      */
-    EnemyEC,
+    EnemyEC(2),
     /**
      * Header 3. A message saying we found an EC that belongs to us, which may have
      * previously belonged to someone else.
      */
-    FriendlyEC,
+    FriendlyEC(3),
+    /**
+     * Header 15. Sentinel for a header we don't know about; it's never sent, and
+     * decoding it just means ignoring the flag.
+     */
+    Unknown(15);
+
+    final int header;
+
+    Type(int header) {
+      this.header = header;
+    }
+  }
+
+  /**
+   * Indexed by header, so decoding the type is an array access instead of a
+   * switch. Headers we don't know map to `Type.Unknown`.
+   */
+  static final Type[] TYPES = new Type[16];
+  static {
+    for (int i = 0; i < 16; i++)
+      TYPES[i] = Type.Unknown;
+    for (Type t : Type.values())
+      TYPES[t.header] = t;
   }
 
   /**
@@ -83,21 +106,7 @@ public class Flag {
   int timestamp;
 
   public int encode(int turn) {
-    int sig = 0;
-    switch (type) {
-    case None:
-      sig = 0;
-      break;
-    case Edge:
-      sig = 1;
-      break;
-    case EnemyEC:
-      sig = 2;
-      break;
-    case FriendlyEC:
-      sig = 3;
-      break;
-    }
+    int sig = type.header;
     int flag = sig << (FLAG_SIZE - TYPE_BITS);
 
     int trel = turn - timestamp;
@@ -160,22 +169,7 @@ public class Flag {
     this.unit_loc = unit_loc;
 
     int sig = flag >> (FLAG_SIZE - TYPE_BITS);
-    switch (sig) {
-    case 0:
-      type = Type.None;
-      break;
-    case 1:
-      type = Type.Edge;
-      break;
-    case 2:
-      type = Type.EnemyEC;
-      break;
-    case 3:
-      type = Type.FriendlyEC;
-      break;
-    default:
-      throw new RuntimeException("Unknown type " + sig);
-    }
+    type = TYPES[sig & 0b1111];
 
     int trel = (flag >> TIMESTAMP_SHIFT) & MAX_TIMESTAMP + 1;
     if (trel == MAX_TIMESTAMP + 1)
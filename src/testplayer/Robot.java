@@ -257,6 +257,7 @@ public class Robot {
             break;
 
           case None:
+          case Unknown:
             break;
           }
         } else if (i.type == RobotType.ENLIGHTENMENT_CENTER) {
@@ -0,0 +1,51 @@
+package setbench;
+
+import java.util.HashSet;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class IntSetTest {
+  @Test
+  public void testBasics() {
+    IntSet set = new IntSet(16);
+    assertTrue(set.add(10001));
+    assertFalse(set.add(10001));
+    assertTrue(set.contains(10001));
+    assertFalse(set.contains(10002));
+    assertTrue(set.remove(10001));
+    assertFalse(set.remove(10001));
+    assertFalse(set.contains(10001));
+    assertEquals(0, set.size());
+  }
+
+  @Test
+  public void testCollisions() {
+    // These all want the same slot, and the run wraps around the end of the table
+    IntSet set = new IntSet(16);
+    for (int i = 0; i < 4; i++)
+      set.add(14 + 16 * i);
+    set.add(15);
+    assertTrue(set.remove(14));
+    for (int i = 1; i < 4; i++)
+      assertTrue(set.contains(14 + 16 * i));
+    assertTrue(set.contains(15));
+  }
+
+  @Test
+  public void testAgainstHashSet() {
+    Random rand = new Random(21);
+    IntSet set = new IntSet(16);
+    HashSet<Integer> expected = new HashSet<>();
+    for (int n = 0; n < 20000; n++) {
+      int id = 10000 + rand.nextInt(3000);
+      if (rand.nextInt(3) == 0)
+        assertEquals(expected.remove(id), set.remove(id));
+      else
+        assertEquals(expected.add(id), set.add(id));
+      assertEquals(expected.size(), set.size());
+    }
+    for (int id = 10000; id < 13000; id++)
+      assertEquals(expected.contains(id), set.contains(id));
+  }
+}
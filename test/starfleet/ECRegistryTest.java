@@ -0,0 +1,55 @@
+package starfleet;
+
+import battlecode.common.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ECRegistryTest {
+  static final MapLocation A = new MapLocation(10030, 20040);
+  static final MapLocation B = new MapLocation(10050, 20010);
+
+  @Test
+  public void testLookup() {
+    ECRegistry ecs = new ECRegistry();
+    ECInfo enemy = new ECInfo(A);
+    ecs.add(enemy, ECRegistry.ENEMY);
+    ECInfo friendly = new ECInfo(12000);
+    ecs.add(friendly, ECRegistry.FRIENDLY);
+
+    assertSame(enemy, ecs.at(A));
+    assertSame(friendly, ecs.withID(12000));
+    assertNull(ecs.at(B));
+    assertTrue(ecs.has(ECRegistry.ENEMY, new ECInfo(A)));
+    assertFalse(ecs.has(ECRegistry.NEUTRAL, new ECInfo(A)));
+
+    // Learning its location makes it findable by that too
+    ecs.setLoc(friendly, B);
+    assertSame(friendly, ecs.at(B));
+    assertSame(friendly, ecs.find(new ECInfo(B)));
+  }
+
+  @Test
+  public void testStableOrder() {
+    ECRegistry ecs = new ECRegistry();
+    ECInfo[] all = new ECInfo[20];
+    for (int i = 0; i < all.length; i++) {
+      all[i] = new ECInfo(A.translate(i, 0));
+      ecs.add(all[i], i % 2 == 0 ? ECRegistry.ENEMY : ECRegistry.NEUTRAL);
+    }
+    assertEquals(10, ecs.count(ECRegistry.ENEMY));
+
+    // Converting and forgetting ECs doesn't move anything
+    ecs.setStatus(all[3], ECRegistry.FRIENDLY);
+    assertTrue(ecs.remove(ECRegistry.ENEMY, new ECInfo(A.translate(4, 0))));
+    assertFalse(ecs.remove(ECRegistry.ENEMY, new ECInfo(A.translate(5, 0))));
+    assertNull(ecs.at(A.translate(4, 0)));
+    for (int i = 0; i < all.length; i++)
+      assertSame(all[i], ecs.get(i));
+
+    assertEquals(9, ecs.count(ECRegistry.ENEMY));
+    assertEquals(9, ecs.count(ECRegistry.NEUTRAL));
+    assertEquals(3, ecs.next(ECRegistry.FRIENDLY, 0));
+    assertEquals(-1, ecs.next(ECRegistry.FRIENDLY, 4));
+    assertEquals(6, ecs.next(ECRegistry.ENEMY, 3));
+  }
+}
@@ -0,0 +1,81 @@
+package starfleet;
+
+import java.lang.reflect.Proxy;
+import battlecode.common.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ECenterTest {
+  static final MapLocation HOME = new MapLocation(10030, 20040);
+  static final MapLocation NEUTRAL = new MapLocation(10050, 20030);
+  static final MapLocation FAR_NEUTRAL = new MapLocation(10090, 20030);
+  /**
+   * However long it takes, it should be well short of `RESYNC_ROUNDS`.
+   */
+  static final int MAX_FLAGS = 12;
+
+  static int round = 1;
+
+  /**
+   * Just enough of an EC for `nextFlag()`.
+   */
+  static RobotController fakeEC() {
+    return (RobotController) Proxy.newProxyInstance(RobotController.class.getClassLoader(),
+        new Class<?>[] { RobotController.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+          case "getLocation":
+            return HOME;
+          case "getRoundNum":
+            return round;
+          case "getType":
+            return RobotType.ENLIGHTENMENT_CENTER;
+          case "getID":
+            return 12345;
+          case "setIndicatorLine":
+          case "setIndicatorDot":
+            return null;
+          default:
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+  static int nextFlag() throws GameActionException {
+    int flag = ECenter.nextFlag();
+    round++;
+    return flag;
+  }
+
+  static boolean isQuiet(int flag) {
+    Flag.Type type = Flag.getType(flag);
+    return type == Flag.Type.Income || type == Flag.Type.Digest;
+  }
+
+  @Test
+  public void testNewUnitHearsNeutralWhileQuiet() throws GameActionException {
+    ECenter.rc = Model.rc = fakeEC();
+    Model.ecs.add(new ECInfo(FAR_NEUTRAL, 100), ECRegistry.NEUTRAL);
+    Model.ecs.add(new ECInfo(NEUTRAL, 100), ECRegistry.NEUTRAL);
+
+    // Let a whole cycle go by, so there's nothing new to tell anyone
+    for (int i = 0; i < 2 * MAX_FLAGS; i++)
+      nextFlag();
+    for (int i = 0; i < 4; i++)
+      assertTrue(isQuiet(nextFlag()));
+
+    // Then spawn a unit. The bootstrap has no facts or enemy ECs to send, so it
+    // starts with the closest neutral EC.
+    ECenter.startBootstrap();
+    int flag = nextFlag();
+    assertEquals(Flag.Type.NeutralEC, Flag.getType(flag));
+    assertEquals(NEUTRAL, Flag.loc(HOME, flag));
+    flag = nextFlag();
+    assertEquals(FAR_NEUTRAL, Flag.loc(HOME, flag));
+    assertEquals(Flag.Type.Income, Flag.getType(nextFlag()));
+
+    // And once it knows everything, we go quiet again
+    for (int i = 0; i < 2 * MAX_FLAGS; i++)
+      nextFlag();
+    assertTrue(isQuiet(nextFlag()));
+  }
+}
@@ -0,0 +1,78 @@
+package starfleet;
+
+import battlecode.common.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class FlagQueueTest {
+  static final MapLocation LOC = new MapLocation(10030, 20040);
+
+  @Test
+  public void testPriority() {
+    FlagQueue q = new FlagQueue();
+    int adopt = Flag.encodeID(Flag.Type.AdoptMe, 12000, false);
+    int edge = Flag.encodeLoc(Flag.Type.Edge, 1, LOC, false);
+    int friendly = Flag.encodeID(Flag.Type.FriendlyEC, 12001, false);
+    int enemy = Flag.encodeLoc(Flag.Type.EnemyEC, 0, LOC, false);
+    int relay = Flag.encodeLoc(Flag.Type.Muckraker2, 0, LOC, false);
+    q.add(adopt, 1);
+    q.add(relay, 1);
+    q.add(edge, 1);
+    q.add(friendly, 1);
+    q.add(enemy, 1);
+
+    assertEquals(enemy, q.poll(2));
+    // Same priority goes in order
+    assertEquals(edge, q.poll(2));
+    assertEquals(friendly, q.poll(2));
+    // Relays wait for what we found ourselves
+    assertEquals(relay, q.poll(2));
+    assertEquals(adopt, q.poll(2));
+    assertEquals(-1, q.poll(2));
+    assertTrue(q.isEmpty());
+  }
+
+  @Test
+  public void testCoalesce() {
+    FlagQueue q = new FlagQueue();
+    // Only the latest EnemyCenter matters
+    for (int i = 0; i < 10; i++)
+      q.add(Flag.encodeLoc(Flag.Type.EnemyCenter, 0, LOC.translate(i, 0), false), i);
+    // A neutral EC is keyed by its location, and the newest influence wins
+    q.add(Flag.encodeLoc(Flag.Type.NeutralEC, Flag.neutralBits(100), LOC, false), 100, 10);
+    q.add(Flag.encodeLoc(Flag.Type.NeutralEC, Flag.neutralBits(150), LOC, false), 150, 10);
+    assertEquals(2, q.size);
+
+    int neutral = q.poll(10);
+    assertEquals(Flag.Type.NeutralEC, Flag.getType(neutral));
+    assertEquals(150, q.extra);
+    assertEquals(150, Flag.neutralInfluence(neutral));
+    assertEquals(LOC.translate(9, 0), Flag.loc(LOC, q.poll(10)));
+  }
+
+  @Test
+  public void testBounds() {
+    FlagQueue q = new FlagQueue();
+    // Stale messages are dropped
+    q.add(Flag.encodeLoc(Flag.Type.EnemyCenter, 0, LOC, false), 1);
+    assertEquals(-1, q.poll(100));
+
+    for (int i = 0; i < FlagQueue.CAPACITY * 2; i++)
+      assertTrue(q.add(Flag.encodeID(Flag.Type.FriendlyEC, 12000 + i, false), 1));
+    assertEquals(FlagQueue.CAPACITY, q.size);
+    // It's full of more important things
+    assertFalse(q.add(Flag.encodeID(Flag.Type.AdoptMe, 12000, false), 1));
+    // But this is more important, and replaces the oldest
+    int enemy = Flag.encodeLoc(Flag.Type.EnemyEC, 0, LOC, false);
+    assertTrue(q.add(enemy, 1));
+    assertEquals(enemy, q.poll(2));
+    assertEquals(12000 + FlagQueue.CAPACITY + 1, Flag.id(q.poll(2)));
+  }
+
+  @Test
+  public void testSlanderer() {
+    int flag = Flag.encodeID(Flag.Type.FriendlyEC, 12000, false);
+    assertEquals(Flag.encodeID(Flag.Type.FriendlyEC, 12000, true), Flag.withSlanderer(flag, true));
+    assertEquals(flag, Flag.withSlanderer(flag, false));
+  }
+}
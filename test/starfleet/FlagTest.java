@@ -0,0 +1,175 @@
+package starfleet;
+
+import battlecode.common.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class FlagTest {
+  static final MapLocation HOME = new MapLocation(10030, 20040);
+
+  @Test
+  public void testCodecMatchesObjects() {
+    Flag one = Flag.muckraker(new MapLocation(10001, 20099), true, 122);
+    int flag = one.encode(true);
+    assertEquals(Flag.encodeLoc(Flag.Type.Muckraker, Flag.muckBits(true, 122), one.loc, true), flag);
+
+    assertEquals(Flag.Type.Muckraker, Flag.getType(flag));
+    assertTrue(Flag.isSlanderer(flag));
+    assertTrue(Flag.aux(flag));
+    assertEquals(10001, Flag.x(flag, HOME.x));
+    assertEquals(20099, Flag.y(flag, HOME.y));
+    assertEquals(122, Flag.muckConviction(flag));
+    assertEquals(one.loc, Flag.loc(HOME, flag));
+  }
+
+  @Test
+  public void testAbsoluteLocations() {
+    // Anyone within 63 tiles can decode it, whichever side they're on
+    MapLocation loc = new MapLocation(10127, 20000);
+    int flag = Flag.encodeLoc(Flag.Type.EnemyEC, 0, loc, false);
+    assertEquals(loc, Flag.loc(loc, flag));
+    assertEquals(loc, Flag.loc(loc.translate(63, -63), flag));
+    assertEquals(loc, Flag.loc(loc.translate(-63, 63), flag));
+    assertEquals(loc, Flag.decode(loc.translate(30, 5), flag).loc);
+  }
+
+  @Test
+  public void testIDs() {
+    int flag = Flag.encodeID(Flag.Type.AdoptMe, 12345, false);
+    assertEquals(Flag.Type.AdoptMe, Flag.getType(flag));
+    assertFalse(Flag.isSlanderer(flag));
+    assertEquals(12345, Flag.id(flag));
+    assertEquals(new Flag(Flag.Type.AdoptMe, 12345).encode(false), flag);
+  }
+
+  @Test
+  public void testNone() {
+    assertTrue(Flag.isNone(Flag.encodeNone(true)));
+    assertTrue(Flag.isSlanderer(Flag.encodeNone(true)));
+    assertFalse(Flag.isSlanderer(Flag.encodeNone(false)));
+  }
+
+  @Test
+  public void testHeaderTables() {
+    for (Flag.Type t : Flag.Type.values()) {
+      assertEquals(t, Flag.Type.decode(t.encode()));
+      int flag = Flag.encodeID(t, 0, false);
+      assertEquals(t, Flag.getType(flag));
+      assertEquals(t.hasID(), Flag.hasID(flag));
+      assertEquals(t.hasLoc(), Flag.hasLoc(flag));
+    }
+    assertFalse(Flag.Type.Edge.hasID());
+    assertTrue(Flag.Type.Edge.hasLoc());
+    assertTrue(Flag.Type.Income.hasID());
+    assertFalse(Flag.Type.Income.hasLoc());
+  }
+
+  @Test
+  public void testPacked() {
+    int flag = Flag.encodePacked(Flag.edgeFact(true, false, 20001),
+        Flag.tagFact(Flag.FACT_SYMMETRY, Symmetry.Rotational.encode()));
+    assertEquals(Flag.Type.Packed, Flag.getType(flag));
+    assertFalse(Flag.isSlanderer(flag));
+
+    int edge = Flag.fact(flag, 0);
+    assertTrue(Flag.isEdgeFact(edge));
+    assertTrue(Flag.edgeIsY(edge));
+    assertFalse(Flag.edgeIsMax(edge));
+    assertEquals(20001, Flag.edgeCoord(edge, 20001));
+    assertEquals(20001, Flag.edgeCoord(edge, 20064));
+    int max_edge = Flag.edgeFact(false, true, 10063);
+    assertEquals(10063, Flag.edgeCoord(max_edge, 10063));
+    assertEquals(10063, Flag.edgeCoord(max_edge, 10000));
+
+    int sym = Flag.fact(flag, 1);
+    assertFalse(Flag.isEdgeFact(sym));
+    assertEquals(Flag.FACT_SYMMETRY, Flag.factTag(sym));
+    assertEquals(Symmetry.Rotational, Symmetry.decode(Flag.factValue(sym)));
+
+    assertEquals(0, Flag.fact(Flag.encodePacked(Flag.edgeFact(false, true, 0), 0), 1));
+  }
+
+  @Test
+  public void testIncome() {
+    int flag = Flag.encodeIncome(100000, 100, true);
+    assertEquals(Flag.Type.Income, Flag.getType(flag));
+    assertTrue(Flag.aux(flag));
+    assertEquals((1 << Flag.INCOME_BITS) - 1, Flag.income(flag));
+    assertEquals(Flag.MAX_POLL_CYCLE, Flag.pollCycle(flag));
+
+    flag = Flag.encodeIncome(31, 2, false);
+    assertFalse(Flag.aux(flag));
+    assertEquals(31, Flag.income(flag));
+    assertEquals(2, Flag.pollCycle(flag));
+    assertEquals(0, Flag.pollCycle(Flag.encodeIncome(31, 0, false)));
+  }
+
+  @Test
+  public void testFragments() {
+    Reassembly r = new Reassembly();
+    int message = (20064 << Flag.FRAG_DATA_BITS) | 30064;
+    Flag[] frags = Flag.fragments(Flag.FRAG_EC_LOCATION, 1, message);
+    int first = frags[0].encode(false);
+    int second = frags[1].encode(false);
+    assertEquals(Flag.Type.Fragment, Flag.getType(first));
+    assertEquals(first, Flag.encodeFragment(Flag.FRAG_EC_LOCATION, 1, 0, 30064, false));
+
+    // The second half on its own doesn't do anything
+    assertEquals(-1, r.add(12000, second, 1));
+    assertEquals(-1, r.add(12000, first, 2));
+    assertEquals(-1, r.add(12000, first, 3));
+    assertEquals(message, r.add(12000, second, 4));
+    // And we only get it once
+    assertEquals(-1, r.add(12000, second, 5));
+
+    // Halves from different messages don't match up
+    assertEquals(-1, r.add(12000, first, 6));
+    assertEquals(-1, r.add(12000, Flag.encodeFragment(Flag.FRAG_EC_LOCATION, 0, 1, 7, false), 7));
+
+    // Or if it took too long
+    assertEquals(-1, r.add(12000, first, 8));
+    assertEquals(-1, r.add(12000, second, 8 + Reassembly.TIMEOUT + 1));
+  }
+
+  @Test
+  public void testDigest() {
+    int flag = Flag.encodeDigest(Flag.DIGEST_MASK);
+    assertEquals(Flag.Type.Digest, Flag.getType(flag));
+    assertFalse(Flag.isSlanderer(flag));
+    assertEquals(Flag.DIGEST_MASK, Flag.digest(flag));
+    assertEquals(12345, Flag.digest(Flag.encodeDigest(12345)));
+    assertFalse(Flag.isRebroadcast(flag));
+
+    assertTrue(Flag.isRebroadcast(Flag.encodeID(Flag.Type.FriendlyEC, 12345, false)));
+    assertTrue(Flag.isRebroadcast(Flag.encodePacked(Flag.edgeFact(false, true, 3), 0)));
+    assertFalse(Flag.isRebroadcast(Flag.encodeIncome(31, 1, false)));
+    assertFalse(Flag.isRebroadcast(Flag.encodeLoc(Flag.Type.Muckraker, 0, HOME, false)));
+  }
+
+  @Test
+  public void testRelay() {
+    int flag = Flag.encodeLoc(Flag.Type.Muckraker2, Flag.relayBits(2, 1005), HOME, true);
+    assertEquals(HOME, Flag.loc(HOME, flag));
+    assertEquals(2, Flag.relayHops(flag));
+    assertEquals(3, Flag.relayAge(flag, 1008));
+    // The round wraps around mod 8
+    assertEquals(0, Flag.relayAge(Flag.encodeLoc(Flag.Type.Muckraker2, Flag.relayBits(1, 1007), HOME, false), 1007));
+    assertEquals(Flag.MAX_RELAY_HOPS, Flag.relayHops(Flag.encodeLoc(Flag.Type.Muckraker2,
+        Flag.relayBits(10, 1005), HOME, false)));
+  }
+
+  @Test
+  public void testSync() {
+    int flag = Flag.encodeSync(Flag.SYNC_CLAIM, HOME.translate(-40, 30));
+    assertEquals(Flag.Type.Fragment, Flag.getType(flag));
+    assertEquals(Flag.FRAG_EC_SYNC, Flag.fragKind(flag));
+    assertEquals(Flag.SYNC_CLAIM, Flag.syncKind(flag));
+    assertEquals(HOME.translate(-40, 30), Flag.loc(HOME, flag));
+    assertFalse(Flag.isRebroadcast(flag));
+
+    flag = Flag.encodeSync(Flag.SYNC_ENEMY_EC, HOME.translate(20, -5));
+    assertEquals(Flag.SYNC_ENEMY_EC, Flag.syncKind(flag));
+    assertEquals(HOME.translate(20, -5), Flag.loc(HOME, flag));
+    assertFalse(Flag.isRebroadcast(flag));
+  }
+}
@@ -0,0 +1,29 @@
+package starfleet;
+
+import java.util.HashMap;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class IntMapTest {
+  @Test
+  public void testAgainstHashMap() {
+    Random rand = new Random(14);
+    IntMap map = new IntMap(16);
+    HashMap<Integer, Integer> expected = new HashMap<>();
+    for (int n = 0; n < 20000; n++) {
+      int id = 10000 + rand.nextInt(3000);
+      if (rand.nextInt(3) == 0) {
+        Integer old = expected.remove(id);
+        assertEquals(old == null ? -1 : old, map.remove(id));
+      } else {
+        int val = rand.nextInt(1000);
+        Integer old = expected.put(id, val);
+        assertEquals(old == null ? -1 : old, map.put(id, val));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (int id = 10000; id < 13000; id++)
+      assertEquals(expected.containsKey(id) ? expected.get(id) : -1, map.get(id));
+  }
+}
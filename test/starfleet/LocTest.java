@@ -0,0 +1,26 @@
+package starfleet;
+
+import battlecode.common.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class LocTest {
+  static final MapLocation HOME = new MapLocation(10030, 20040);
+
+  @Test
+  public void testPack() {
+    int h = Loc.of(HOME);
+    assertEquals(Loc.pack(HOME.x, HOME.y), h);
+    assertEquals(Loc.NONE, Loc.of(null));
+    assertEquals(Loc.pack(HOME.x - 1, HOME.y - 1), Loc.add(h, Direction.SOUTHWEST));
+    assertEquals(Loc.of(HOME.add(Direction.NORTHEAST)), Loc.add(h, Direction.NORTHEAST));
+  }
+
+  @Test
+  public void testDistance() {
+    int h = Loc.of(HOME);
+    for (int dx = -8; dx <= 8; dx++)
+      for (int dy = -8; dy <= 8; dy++)
+        assertEquals(HOME.distanceSquaredTo(HOME.translate(dx, dy)), Loc.dist2(h, Loc.pack(HOME.x + dx, HOME.y + dy)));
+  }
+}
@@ -0,0 +1,42 @@
+package starfleet;
+
+import battlecode.common.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class MuckTrackerTest {
+  static final MapLocation HOME = new MapLocation(10030, 20040);
+
+  @Test
+  public void testExpiry() {
+    MuckTracker t = new MuckTracker();
+    assertTrue(t.add(HOME.x + 10, HOME.y, 100));
+    assertTrue(t.add(HOME.x - 2, HOME.y + 1, 102));
+    // Repeats don't count while we remember the first one
+    assertFalse(t.add(HOME.x + 10, HOME.y, 103));
+    assertEquals(2, t.size());
+    assertEquals(new MapLocation(HOME.x - 2, HOME.y + 1), t.closest(HOME));
+    assertEquals(new MapLocation(HOME.x + 4, HOME.y), t.centroid());
+
+    t.expire(100 + MuckTracker.TTL + 1, HOME.x, HOME.y);
+    assertEquals(1, t.size());
+    assertEquals(new MapLocation(HOME.x - 2, HOME.y + 1), t.centroid());
+    // And it can come back
+    assertTrue(t.add(HOME.x + 10, HOME.y, 106));
+
+    t.expire(200, HOME.x, HOME.y);
+    assertNull(t.closest(HOME));
+    assertNull(t.centroid());
+  }
+
+  @Test
+  public void testFull() {
+    MuckTracker t = new MuckTracker();
+    for (int i = 0; i < MuckTracker.CAPACITY + 10; i++)
+      t.add(HOME.x + i % 60 - 30, HOME.y + i / 60, 100);
+    assertEquals(MuckTracker.CAPACITY, t.size());
+    // The oldest ones went first
+    assertTrue(t.add(HOME.x - 30, HOME.y, 100));
+    assertFalse(t.add(HOME.x - 30, HOME.y + 1, 100));
+  }
+}
@@ -0,0 +1,78 @@
+package starfleet;
+
+import battlecode.common.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SymmetryTrackerTest {
+  static final int MIN_X = 10000;
+  static final int MIN_Y = 20000;
+  static final int MAX_X = 10040;
+  static final int MAX_Y = 20030;
+  static final MapLocation OURS = new MapLocation(10005, 20010);
+  // OURS mirrored left-right
+  static final MapLocation ACROSS = new MapLocation(10035, 20010);
+
+  static void setEdges(boolean x, boolean y) {
+    Model.edges = (x ? Model.EDGES_X : 0) | (y ? Model.EDGES_Y : 0);
+    Model.minX = MIN_X;
+    Model.maxX = MAX_X;
+    Model.minY = MIN_Y;
+    Model.maxY = MAX_Y;
+  }
+
+  @Test
+  public void testEvidence() {
+    setEdges(false, false);
+    ECRegistry ecs = new ECRegistry();
+    SymmetryTracker t = new SymmetryTracker(ecs);
+    ECInfo ours = new ECInfo(OURS);
+    ecs.add(ours, ECRegistry.FRIENDLY);
+    ECInfo theirs = new ECInfo(ACROSS);
+    ecs.add(theirs, ECRegistry.ENEMY);
+
+    // We can't mirror anything without the edges
+    assertEquals(0, t.evidence(Symmetry.Horizontal));
+    assertEquals(Symmetry.Rotational, t.best(null));
+
+    setEdges(true, false);
+    assertEquals(1, t.evidence(Symmetry.Horizontal));
+    assertEquals(Symmetry.Horizontal, t.best(null));
+    // A hint breaks a tie
+    setEdges(true, true);
+    ECInfo rot = new ECInfo(new MapLocation(10035, 20020));
+    ecs.add(rot, ECRegistry.NEUTRAL);
+    assertEquals(1, t.evidence(Symmetry.Rotational));
+    assertEquals(Symmetry.Horizontal, t.best(Symmetry.Horizontal));
+
+    // Losing the EC across from us takes its evidence with it
+    ecs.remove(theirs);
+    assertEquals(0, t.evidence(Symmetry.Horizontal));
+    assertEquals(Symmetry.Rotational, t.best(null));
+
+    // Guesses don't count, or a guess would confirm itself
+    ECInfo guess = ECInfo.guess(ACROSS.translate(0, 1), Symmetry.Horizontal);
+    ecs.add(guess, ECRegistry.ENEMY);
+    ECInfo ours2 = new ECInfo(OURS.translate(0, 1));
+    ecs.add(ours2, ECRegistry.FRIENDLY);
+    assertEquals(0, t.evidence(Symmetry.Horizontal));
+    ecs.setGuessed(guess, null);
+    assertEquals(1, t.evidence(Symmetry.Horizontal));
+
+    // And an EC that stops being ours stops counting
+    ecs.setStatus(ours2, ECRegistry.ENEMY);
+    assertEquals(0, t.evidence(Symmetry.Horizontal));
+    setEdges(false, false);
+  }
+
+  @Test
+  public void testRuleOut() {
+    setEdges(false, false);
+    SymmetryTracker t = new SymmetryTracker(new ECRegistry());
+    t.ruleOut(Symmetry.Rotational);
+    assertFalse(t.isPossible(Symmetry.Rotational));
+    assertEquals(Symmetry.Vertical, t.best(null));
+    t.ruleOut(Symmetry.Vertical);
+    assertEquals(Symmetry.Horizontal, t.best(Symmetry.Vertical));
+  }
+}